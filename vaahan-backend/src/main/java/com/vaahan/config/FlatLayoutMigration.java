@@ -0,0 +1,123 @@
+package com.vaahan.config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.vaahan.dto.StoredFile;
+import com.vaahan.repository.EvidenceBlobRepository;
+import com.vaahan.repository.ViolationReportRepository;
+import com.vaahan.service.FileStorageService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * One-off migration of the old flat upload directory (UUID.ext files) into the content-addressed layout.
+ * Enable with file.storage.migrate-flat-layout=true; files are migrated in parallel and the run is
+ * restartable, since a flat file is only deleted after the reports pointing at it have been repointed.
+ */
+@Component
+@ConditionalOnProperty(name = "file.storage.migrate-flat-layout", havingValue = "true")
+@Slf4j
+public class FlatLayoutMigration implements CommandLineRunner {
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private EvidenceBlobRepository evidenceBlobRepository;
+
+    @Autowired
+    private ViolationReportRepository reportRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${file.upload.path}")
+    private String uploadPath;
+
+    @Value("${file.storage.migration-threads:0}")
+    private int threads;
+
+    @Override
+    public void run(String... args) throws Exception {
+        Path root = Paths.get(uploadPath).toAbsolutePath().normalize();
+        if (!Files.isDirectory(root)) {
+            log.info("No upload directory at {}, nothing to migrate", root);
+            return;
+        }
+
+        List<String> legacyNames;
+        try (Stream<Path> files = Files.list(root)) {
+            legacyNames = files.filter(Files::isRegularFile)
+                    .map(path -> path.getFileName().toString())
+                    .filter(name -> !name.startsWith("."))
+                    .collect(Collectors.toList());
+        }
+        log.info("Migrating {} files from flat upload directory {}", legacyNames.size(), root);
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger migrated = new AtomicInteger();
+        AtomicInteger deduplicated = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        for (String legacyName : legacyNames) {
+            executor.execute(() -> {
+                try {
+                    if (migrate(legacyName, transactionTemplate)) {
+                        deduplicated.incrementAndGet();
+                    }
+                    int done = migrated.incrementAndGet();
+                    if (done % 1000 == 0) {
+                        log.info("Migrated {}/{} files", done, legacyNames.size());
+                    }
+                } catch (Exception e) {
+                    failed.incrementAndGet();
+                    log.error("Failed to migrate {}: {}", legacyName, e.getMessage());
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+        log.info("Flat layout migration finished: {} migrated ({} duplicates), {} failed",
+                migrated.get(), deduplicated.get(), failed.get());
+    }
+
+    // Returns true if the file's content was already stored under another name
+    private boolean migrate(String legacyName, TransactionTemplate transactionTemplate) throws IOException {
+        StoredFile storedFile = fileStorageService.migrateLegacyFile(legacyName);
+        String imageUrl = fileStorageService.getFileUrl(storedFile.getFileName());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            int references = reportRepository.repointImageUrl("%/" + legacyName, imageUrl);
+            // Uploads no report points at keep the single reference a fresh upload would have
+            if (references > 0 || !evidenceBlobRepository.existsById(storedFile.getSha256())) {
+                evidenceBlobRepository.acquire(storedFile.getSha256(), storedFile.getFileName(), Math.max(references, 1),
+                        storedFile.getSize(), storedFile.getContentType(), storedFile.getWidth(), storedFile.getHeight(),
+                        storedFile.getPerceptualHash(), null);
+            }
+        });
+
+        Files.deleteIfExists(fileStorageService.resolvePath(legacyName));
+        return storedFile.isDeduplicated();
+    }
+}
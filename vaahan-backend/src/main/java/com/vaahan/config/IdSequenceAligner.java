@@ -0,0 +1,45 @@
+package com.vaahan.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.vaahan.entities.VCoinTransaction;
+import com.vaahan.entities.ViolationReport;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Report and VCoin transaction ids used to come from AUTO_INCREMENT. Moves each pooled id sequence
+ * past the highest existing id so the first allocated block cannot collide with old rows; a no-op once it has.
+ */
+@Component
+@Slf4j
+public class IdSequenceAligner {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Depend on the EntityManagerFactory so the schema update has created the sequence tables
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    void align() {
+        align("violation_reports", "report_id", "violation_report_seq", ViolationReport.ID_ALLOCATION_SIZE);
+        align("vcoin_transactions", "id", "vcoin_transaction_seq", VCoinTransaction.ID_ALLOCATION_SIZE);
+    }
+
+    private void align(String table, String idColumn, String sequence, int allocationSize) {
+        Long maxId = jdbcTemplate.queryForObject("select coalesce(max(" + idColumn + "), 0) from " + table, Long.class);
+        // The pooled optimizer hands out the block ending at next_val, so it must sit a whole block past maxId
+        long safeNextVal = maxId + allocationSize + 1;
+        int updated = jdbcTemplate.update("update " + sequence + " set next_val = ? where next_val < ?",
+                safeNextVal, safeNextVal);
+        if (updated > 0) {
+            log.info("Moved {} past existing id {}", sequence, maxId);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.vaahan.config;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.vaahan.repository.ViolationReportRepository;
+import com.vaahan.service.FileStorageService;
+import com.vaahan.service.NearDuplicateService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * One-off hashing of evidence submitted before perceptual hashing, so older reports take part in
+ * near-duplicate matching. Enable with file.storage.backfill-perceptual-hashes=true; images are
+ * decoded in parallel and the run is restartable, since only reports without a hash are visited.
+ */
+@Component
+@ConditionalOnProperty(name = "file.storage.backfill-perceptual-hashes", havingValue = "true")
+@Slf4j
+public class PerceptualHashBackfill implements CommandLineRunner {
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private ViolationReportRepository reportRepository;
+
+    @Autowired
+    private NearDuplicateService nearDuplicateService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${file.storage.backfill-threads:0}")
+    private int threads;
+
+    @Override
+    public void run(String... args) throws Exception {
+        List<String> imageUrls = reportRepository.findImageUrlsWithoutHash();
+        log.info("Backfilling perceptual hashes for {} report images", imageUrls.size());
+
+        // Decoding is CPU-bound
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger hashed = new AtomicInteger();
+        AtomicInteger skipped = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        for (String imageUrl : imageUrls) {
+            executor.execute(() -> {
+                try {
+                    if (backfill(imageUrl, transactionTemplate)) {
+                        int done = hashed.incrementAndGet();
+                        if (done % 1000 == 0) {
+                            log.info("Hashed {}/{} report images", done, imageUrls.size());
+                        }
+                    } else {
+                        skipped.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    failed.incrementAndGet();
+                    log.error("Failed to hash {}: {}", imageUrl, e.getMessage());
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+        log.info("Perceptual hash backfill finished: {} hashed, {} missing or undecodable, {} failed",
+                hashed.get(), skipped.get(), failed.get());
+    }
+
+    // Returns false if the image is missing or cannot be decoded
+    private boolean backfill(String imageUrl, TransactionTemplate transactionTemplate) {
+        String fileName = imageUrl.substring(imageUrl.lastIndexOf('/') + 1);
+        Long imageHash = fileStorageService.getPerceptualHash(fileName);
+        if (imageHash == null) {
+            return false;
+        }
+
+        // Only rows still without a hash: a report already indexed, at submission or by an earlier
+        // run, would otherwise be registered a second time
+        List<Long> reportIds = transactionTemplate.execute(status -> {
+            List<Long> unhashed = reportRepository.lockIdsWithoutHashByImageUrl(imageUrl);
+            if (!unhashed.isEmpty()) {
+                reportRepository.setImageHash(unhashed, imageHash);
+            }
+            return unhashed;
+        });
+        for (Long reportId : reportIds) {
+            nearDuplicateService.register(reportId, imageHash);
+        }
+        return true;
+    }
+}
@@ -3,20 +3,32 @@ package com.vaahan.controller;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.vaahan.dto.ApiResponse;
+import com.vaahan.dto.CompactionReportDTO;
+import com.vaahan.dto.OrphanReportDTO;
+import com.vaahan.dto.StorageUsageDTO;
 import com.vaahan.dto.User.UserDTO;
 import com.vaahan.entities.User;
 import com.vaahan.entities.UserRole;
 import com.vaahan.entities.UserStatus;
+import com.vaahan.exception.PasswordHashingRejectedException;
+import com.vaahan.exception.ResourceNotFoundException;
 import com.vaahan.exception.UserAlreadyExistsException;
+import com.vaahan.service.EvidenceCompactionService;
+import com.vaahan.service.FileStorageService;
+import com.vaahan.service.OrphanCollectorService;
 import com.vaahan.service.UserService;
 import com.vaahan.util.Mapper;
 
@@ -30,9 +42,18 @@ public class AdminController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private OrphanCollectorService orphanCollectorService;
+
+    @Autowired
+    private EvidenceCompactionService evidenceCompactionService;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private FileStorageService fileStorageService;
+
     @GetMapping("/users")
     public ResponseEntity<ApiResponse<List<UserDTO>>> getAllUsers() {
         log.info("Admin requesting all users");
@@ -49,6 +70,66 @@ public class AdminController {
         }
     }
 
+    @GetMapping("/storage")
+    public ResponseEntity<ApiResponse<StorageUsageDTO>> getStorageUsage(
+            @RequestParam(value = "userId", required = false) Long userId) {
+        log.info("Admin requesting evidence storage usage");
+        
+        try {
+            StorageUsageDTO usage = fileStorageService.getStorageUsage(userId);
+            return ResponseEntity.ok(ApiResponse.success("Storage usage retrieved successfully", usage));
+            
+        } catch (Exception e) {
+            log.error("Error retrieving storage usage: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to retrieve storage usage. Please try again later."));
+        }
+    }
+
+    @PostMapping("/storage/orphans")
+    public ResponseEntity<ApiResponse<Void>> collectOrphans(
+            @RequestParam(value = "dryRun", defaultValue = "true") boolean dryRun) {
+        log.info("Admin requesting orphaned upload collection (dry run: {})", dryRun);
+        
+        // Runs are rate-limited and can take a while; the report is fetched with GET once finished
+        if (!orphanCollectorService.start(dryRun)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.error("Orphan collection is already running"));
+        }
+        return ResponseEntity.accepted().body(ApiResponse.success("Orphan collection started", null));
+    }
+
+    @GetMapping("/storage/orphans")
+    public ResponseEntity<ApiResponse<OrphanReportDTO>> getOrphanReport() {
+        OrphanReportDTO report = orphanCollectorService.getLastReport();
+        if (report == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error("No orphan collection has finished since startup"));
+        }
+        return ResponseEntity.ok(ApiResponse.success("Last orphan collection report", report));
+    }
+
+    @PostMapping("/storage/packs")
+    public ResponseEntity<ApiResponse<Void>> compactEvidence() {
+        log.info("Admin requesting evidence compaction");
+        
+        if (!evidenceCompactionService.start()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.error("Evidence compaction is already running"));
+        }
+        return ResponseEntity.accepted().body(ApiResponse.success("Evidence compaction started", null));
+    }
+
+    @GetMapping("/storage/packs")
+    public ResponseEntity<ApiResponse<CompactionReportDTO>> getCompactionReport() {
+        CompactionReportDTO report = evidenceCompactionService.getLastReport();
+        if (report == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error("No evidence compaction has finished since startup"));
+        }
+        return ResponseEntity.ok(ApiResponse.success("Last evidence compaction report", report));
+    }
+
     @PostMapping("/create-user")
     public ResponseEntity<ApiResponse<UserDTO>> createUser(@RequestBody CreateUserRequest request) {
         log.info("Admin creating new user: {}", request.getUsername());
@@ -82,6 +163,9 @@ public class AdminController {
             
             return ResponseEntity.ok(ApiResponse.success("User created successfully", userResponse));
 
+        } catch (PasswordHashingRejectedException e) {
+            // Handled by GlobalExceptionHandler as 503 with Retry-After
+            throw e;
         } catch (UserAlreadyExistsException e) {
             log.warn("Admin failed to create user - user already exists: {}", e.getMessage());
             return ResponseEntity.badRequest()
@@ -93,6 +177,44 @@ public class AdminController {
         }
     }
 
+    @PutMapping("/users/{id}/status")
+    public ResponseEntity<ApiResponse<UserDTO>> updateUserStatus(@PathVariable Long id, @RequestParam UserStatus status) {
+        log.info("Admin updating status of user {} to: {}", id, status);
+        
+        try {
+            UserDTO updatedUser = userService.updateUserStatus(id, status);
+            return ResponseEntity.ok(ApiResponse.success("User status updated successfully", updatedUser));
+            
+        } catch (ResourceNotFoundException e) {
+            log.warn("User not found for status update: {}", id);
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error updating status of user {}: {}", id, e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to update user status. Please try again later."));
+        }
+    }
+
+    @PutMapping("/users/{id}/role")
+    public ResponseEntity<ApiResponse<UserDTO>> updateUserRole(@PathVariable Long id, @RequestParam UserRole role) {
+        log.info("Admin updating role of user {} to: {}", id, role);
+        
+        try {
+            UserDTO updatedUser = userService.updateUserRole(id, role);
+            return ResponseEntity.ok(ApiResponse.success("User role updated successfully", updatedUser));
+            
+        } catch (ResourceNotFoundException e) {
+            log.warn("User not found for role update: {}", id);
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error updating role of user {}: {}", id, e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to update user role. Please try again later."));
+        }
+    }
+
     // Inner class for create user request
     public static class CreateUserRequest {
         private String username;
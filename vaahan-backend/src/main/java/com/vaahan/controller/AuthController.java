@@ -1,23 +1,37 @@
 package com.vaahan.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.vaahan.dto.ApiResponse;
 import com.vaahan.dto.AuthRequest;
 import com.vaahan.dto.AuthResponse;
+import com.vaahan.dto.RefreshTokenRequest;
+import com.vaahan.exception.PasswordHashingRejectedException;
 import com.vaahan.exception.ResourceNotFoundException;
 import com.vaahan.security.CustomUserDetailsService;
 import com.vaahan.security.JwtUtil;
+import com.vaahan.security.RateLimiter;
+import com.vaahan.security.SecurityVersionRegistry;
+import com.vaahan.security.TokenRevocationList;
+import com.vaahan.security.UserPrincipal;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 
@@ -29,31 +43,47 @@ public class AuthController {
     @Autowired
     private AuthenticationManager authenticationManager;
 
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
     @Autowired
     private CustomUserDetailsService userDetailsService;
 
     @Autowired
-    private JwtUtil jwtUtil;
+    private TokenRevocationList tokenRevocationList;
+
+    @Autowired
+    private SecurityVersionRegistry securityVersionRegistry;
 
     @PostMapping("/login")
-    public ResponseEntity<ApiResponse<AuthResponse>> login(@Valid @RequestBody AuthRequest request) {
+    public ResponseEntity<ApiResponse<AuthResponse>> login(@Valid @RequestBody AuthRequest request,
+                                                           HttpServletRequest httpRequest) {
         log.info("Login attempt for user: {}", request.getUsername());
         
+        // Throttle before any password hashing or user lookup
+        rateLimiter.check(RateLimiter.Endpoint.LOGIN, request.getUsername(), httpRequest.getRemoteAddr());
+
         try {
-            // Authenticate user
-            authenticationManager.authenticate(
+            // Authenticate user; the authenticated principal is reused for the token
+            Authentication authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword())
             );
 
-            // Load user details and generate token
-            UserDetails userDetails = userDetailsService.loadUserByUsername(request.getUsername());
+            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
             String token = jwtUtil.generateToken(userDetails);
+            String refreshToken = jwtUtil.generateRefreshToken(userDetails);
 
             log.info("Login successful for user: {}", request.getUsername());
             
-            AuthResponse authResponse = new AuthResponse(token);
+            AuthResponse authResponse = new AuthResponse(token, refreshToken);
             return ResponseEntity.ok(ApiResponse.success("Login successful", authResponse));
 
+        } catch (PasswordHashingRejectedException e) {
+            // Handled by GlobalExceptionHandler as 503 with Retry-After
+            throw e;
         } catch (BadCredentialsException e) {
             log.warn("Login failed - invalid credentials for user: {}", request.getUsername());
             return ResponseEntity.badRequest()
@@ -68,4 +98,72 @@ public class AuthController {
                     .body(ApiResponse.error("Login failed. Please try again later. Error: " + e.getMessage()));
         }
     }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<ApiResponse<AuthResponse>> refresh(@RequestBody RefreshTokenRequest request) {
+        try {
+            Claims claims = jwtUtil.parseClaims(request.getRefreshToken());
+            if (!jwtUtil.isRefreshToken(claims)) {
+                log.warn("Refresh rejected - not a refresh token");
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .body(ApiResponse.error("Invalid refresh token"));
+            }
+
+            // Rotate: revoking fails if this refresh token was already used
+            if (!tokenRevocationList.revoke(claims.getId(), claims.getExpiration().getTime())) {
+                log.warn("Refresh rejected - token reuse for user: {}", claims.getSubject());
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .body(ApiResponse.error("Refresh token has already been used"));
+            }
+
+            UserPrincipal tokenPrincipal = jwtUtil.toPrincipal(claims);
+            UserDetails userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+            if (!userDetails.isEnabled() || (tokenPrincipal != null
+                    && !securityVersionRegistry.isCurrent(tokenPrincipal.getId(), tokenPrincipal.getSecurityVersion()))) {
+                log.warn("Refresh rejected - access revoked for user: {}", claims.getSubject());
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .body(ApiResponse.error("Session is no longer valid. Please log in again."));
+            }
+
+            AuthResponse authResponse = new AuthResponse(
+                    jwtUtil.generateToken(userDetails),
+                    jwtUtil.generateRefreshToken(userDetails));
+            return ResponseEntity.ok(ApiResponse.success("Token refreshed successfully", authResponse));
+
+        } catch (JwtException | IllegalArgumentException | UsernameNotFoundException e) {
+            log.warn("Refresh rejected - {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ApiResponse.error("Invalid refresh token"));
+        } catch (Exception e) {
+            log.error("Unexpected error during token refresh: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Token refresh failed. Please try again later."));
+        }
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<ApiResponse<String>> logout(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authHeader,
+            @RequestBody(required = false) RefreshTokenRequest request) {
+
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            revokeQuietly(authHeader.substring(7));
+        }
+        if (request != null && request.getRefreshToken() != null) {
+            revokeQuietly(request.getRefreshToken());
+        }
+        return ResponseEntity.ok(ApiResponse.success("Logged out successfully", "Logged out"));
+    }
+
+    // Tokens that no longer verify are already unusable, so there is nothing to revoke
+    private void revokeQuietly(String token) {
+        try {
+            Claims claims = jwtUtil.parseClaims(token);
+            tokenRevocationList.revoke(claims.getId(), claims.getExpiration().getTime());
+            log.info("Revoked {} token for user: {}",
+                    jwtUtil.isRefreshToken(claims) ? "refresh" : "access", claims.getSubject());
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Ignoring invalid token on logout: {}", e.getMessage());
+        }
+    }
 }
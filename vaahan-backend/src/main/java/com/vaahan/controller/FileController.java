@@ -1,29 +1,38 @@
 package com.vaahan.controller;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.sql.Timestamp;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.vaahan.dto.ApiResponse;
+import com.vaahan.dto.StoredFile;
+import com.vaahan.entities.EvidenceBlob;
 import com.vaahan.exception.FileStorageException;
+import com.vaahan.security.UserPrincipal;
 import com.vaahan.service.FileStorageService;
+import com.vaahan.service.ImageVariantService;
+import com.vaahan.util.FileResponseWriter;
+import com.vaahan.util.IdempotencyStore;
+import com.vaahan.util.ImageType;
+import com.vaahan.util.ImageVariant;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 
 @RestController
@@ -34,18 +43,31 @@ public class FileController {
     @Autowired
     private FileStorageService fileStorageService;
 
-    @Value("${file.upload.path}")
-    private String uploadPath;
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private FileResponseWriter fileResponseWriter;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
 
     @PostMapping("/upload")
-    public ResponseEntity<ApiResponse<String>> uploadFile(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<ApiResponse<String>> uploadFile(@RequestParam("file") MultipartFile file,
+                                                          @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+                                                          @AuthenticationPrincipal UserPrincipal principal) {
+        Long uploaderId = principal != null ? principal.getId() : null;
+        return idempotencyStore.execute(idempotencyKey, uploaderId, "files.upload", () -> uploadFile(file, uploaderId));
+    }
+
+    private ResponseEntity<ApiResponse<String>> uploadFile(MultipartFile file, Long uploaderId) {
         log.info("File upload request received: {}", file.getOriginalFilename());
         
         try {
-            String fileName = fileStorageService.storeFile(file);
-            String fileUrl = fileStorageService.getFileUrl(fileName);
+            StoredFile storedFile = fileStorageService.store(file, uploaderId);
+            String fileUrl = fileStorageService.getFileUrl(storedFile.getFileName());
             
-            log.info("File uploaded successfully: {}", fileName);
+            log.info("File uploaded successfully: {}", storedFile.getFileName());
             return ResponseEntity.ok(ApiResponse.success("File uploaded successfully", fileUrl));
             
         } catch (FileStorageException e) {
@@ -60,35 +82,78 @@ public class FileController {
     }
 
     @GetMapping("/{fileName:.+}")
-    public ResponseEntity<Resource> downloadFile(@PathVariable String fileName) {
-        log.info("File download request for: {}", fileName);
+    public void downloadFile(@PathVariable String fileName,
+                             @RequestParam(value = "variant", required = false) String variant,
+                             HttpServletRequest request,
+                             HttpServletResponse response) throws IOException {
+        log.debug("File download request for: {}", fileName);
         
         try {
-            Path filePath = Paths.get(uploadPath).resolve(fileName).normalize();
-            Resource resource = new UrlResource(filePath.toUri());
-
-            if (resource.exists()) {
-                // Determine content type
-                String contentType = "application/octet-stream";
-                try {
-                    contentType = Files.probeContentType(filePath);
-                } catch (IOException e) {
-                    log.warn("Could not determine content type for file: {}", fileName);
+            Path filePath = null;
+            String contentType = null;
+            EvidenceBlob metadata = fileStorageService.getMetadata(fileName);
+            if (variant != null) {
+                ImageVariant imageVariant = ImageVariant.fromParameter(variant);
+                if (imageVariant == null) {
+                    response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+                    return;
+                }
+                ByteBuffer packed = metadata != null && metadata.getPackId() != null
+                        ? fileStorageService.getPackedContent(fileName, imageVariant) : null;
+                if (packed != null) {
+                    fileResponseWriter.write(fileStorageService.resolveVariantPath(fileName, imageVariant)
+                                    .getFileName().toString(), packed, MediaType.IMAGE_JPEG_VALUE,
+                            Timestamp.valueOf(metadata.getCreatedAt()).getTime(), request, response);
+                    return;
+                }
+                filePath = imageVariantService.getVariant(fileName, imageVariant);
+                contentType = MediaType.IMAGE_JPEG_VALUE;
+            }
+            if (filePath == null) {
+                // Indexed originals are served from metadata alone, without probing the filesystem
+                if (metadata != null && metadata.getSizeBytes() != null && metadata.getContentType() != null) {
+                    ByteBuffer content = fileStorageService.getCachedContent(fileName);
+                    if (content == null && metadata.getPackId() != null) {
+                        content = fileStorageService.getPackedContent(fileName, null);
+                    }
+                    if (content != null) {
+                        fileResponseWriter.write(fileName, content, metadata.getContentType(),
+                                Timestamp.valueOf(metadata.getCreatedAt()).getTime(), request, response);
+                        return;
+                    }
+                    fileResponseWriter.write(fileStorageService.resolvePath(fileName), metadata.getContentType(),
+                            metadata.getSizeBytes(), Timestamp.valueOf(metadata.getCreatedAt()).getTime(),
+                            request, response);
+                    return;
                 }
 
-                log.info("File served successfully: {}", fileName);
-                return ResponseEntity.ok()
-                        .contentType(MediaType.parseMediaType(contentType))
-                        .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + resource.getFilename() + "\"")
-                        .body(resource);
-            } else {
+                // No variant requested, or the original cannot be decoded to make one
+                filePath = fileStorageService.resolvePath(fileName);
+                // Stored names carry the extension of the type detected at upload, so no probing is needed
+                ImageType imageType = ImageType.fromFileName(fileName);
+                contentType = imageType != null ? imageType.getMediaType() : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+            }
+
+            if (filePath == null) {
                 log.warn("File not found: {}", fileName);
-                return ResponseEntity.notFound().build();
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
             }
+            fileResponseWriter.write(filePath, contentType, request, response);
             
+        } catch (NoSuchFileException e) {
+            log.warn("Indexed file missing from storage: {}", fileName);
+            if (!response.isCommitted()) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            }
+        } catch (IOException e) {
+            // Usually the client went away mid-transfer
+            log.debug("I/O error serving file {}: {}", fileName, e.getMessage());
         } catch (Exception e) {
             log.error("Error serving file {}: {}", fileName, e.getMessage(), e);
-            return ResponseEntity.internalServerError().build();
+            if (!response.isCommitted()) {
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            }
         }
     }
-} 
\ No newline at end of file
+}
@@ -9,10 +9,11 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.vaahan.dto.ApiResponse;
+import com.vaahan.security.RateLimiter;
 import com.vaahan.service.OtpService;
 import com.vaahan.service.EmailService;
 
-import java.util.Map;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 
 @RestController
@@ -26,10 +27,16 @@ public class OtpController {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private RateLimiter rateLimiter;
+
     @PostMapping("/generate")
-    public ResponseEntity<ApiResponse<String>> generateOtp(@RequestParam String username) {
+    public ResponseEntity<ApiResponse<String>> generateOtp(@RequestParam String username,
+                                                           HttpServletRequest request) {
         log.info("Generating OTP for user: {}", username);
         
+        rateLimiter.check(RateLimiter.Endpoint.OTP_SEND, username, request.getRemoteAddr());
+
         try {
             otpService.generateOtp(username);
             log.info("OTP generated successfully for user: {}", username);
@@ -42,9 +49,12 @@ public class OtpController {
     }
 
     @PostMapping("/verify")
-    public ResponseEntity<ApiResponse<String>> verifyOtp(@RequestParam String username, @RequestParam String otp) {
+    public ResponseEntity<ApiResponse<String>> verifyOtp(@RequestParam String username, @RequestParam String otp,
+                                                         HttpServletRequest request) {
         log.info("OTP verification attempt for user: {}", username);
         
+        rateLimiter.check(RateLimiter.Endpoint.OTP_VERIFY, username, request.getRemoteAddr());
+
         try {
             boolean verified = otpService.verifyOtp(username, otp);
             if (verified) {
@@ -3,18 +3,33 @@ package com.vaahan.controller;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.vaahan.dto.ApiResponse;
+import com.vaahan.dto.ReportClaimDTO;
+import com.vaahan.dto.ReportPageDTO;
+import com.vaahan.dto.ReviewDecisionDTO;
+import com.vaahan.dto.ReviewDecisionResultDTO;
 import com.vaahan.dto.ViolationReportDTO;
-import com.vaahan.entities.ViolationReport;
+import com.vaahan.entities.SeverityLevel;
+import com.vaahan.exception.LeaseNotHeldException;
 import com.vaahan.exception.ResourceNotFoundException;
+import com.vaahan.security.UserPrincipal;
+import com.vaahan.service.ReviewEventService;
 import com.vaahan.service.ViolationReportService;
 
 import lombok.extern.slf4j.Slf4j;
@@ -27,15 +42,34 @@ public class ReviewerController {
     @Autowired
     private ViolationReportService reportService;
 
+    @Autowired
+    private ReviewEventService reviewEventService;
+
+    @Value("${reports.review.max-decisions:100}")
+    private int maxDecisions;
+
     @GetMapping("/pending")
-    public ResponseEntity<ApiResponse<List<ViolationReportDTO>>> getAllPendingReports() {
-        log.info("Reviewer requesting all pending reports");
+    public ResponseEntity<ApiResponse<ReportPageDTO>> getPendingReports(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "severity", required = false) String severity,
+            @RequestParam(value = "category", required = false) String category,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        log.info("Reviewer requesting pending reports");
         
         try {
-            List<ViolationReportDTO> reports = reportService.getAllPendingReports();
-            log.info("Successfully retrieved {} pending reports for reviewer", reports.size());
-            return ResponseEntity.ok(ApiResponse.success("Pending reports retrieved successfully", reports));
+            SeverityLevel severityLevel = null;
+            if (severity != null && !severity.isBlank()) {
+                severityLevel = SeverityLevel.fromParameter(severity);
+                if (severityLevel == null) {
+                    throw new IllegalArgumentException("Unknown severity: " + severity);
+                }
+            }
+            ReportPageDTO page = reportService.getPendingReports(cursor, severityLevel, category, limit);
+            log.info("Successfully retrieved {} pending reports for reviewer", page.getItems().size());
+            return ResponseEntity.ok(ApiResponse.success("Pending reports retrieved successfully", page));
             
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             log.error("Error retrieving pending reports for reviewer: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError()
@@ -43,12 +77,64 @@ public class ReviewerController {
         }
     }
 
+    /**
+     * Stream of report-submitted, report-claimed and report-decided events. Browsers reconnect with
+     * Last-Event-ID and get what they missed; a reset event means the client should reload the queue.
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamEvents(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        try {
+            return ResponseEntity.ok()
+                    .header("X-Accel-Buffering", "no") // Keep buffering proxies from holding events back
+                    .body(reviewEventService.subscribe(lastEventId));
+        } catch (IllegalStateException e) {
+            log.warn("Refused review event subscription: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @PostMapping("/claims")
+    public ResponseEntity<ApiResponse<ReportClaimDTO>> claimReports(
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        try {
+            ReportClaimDTO claim = reportService.claimReports(principal.getId(), limit);
+            return ResponseEntity.ok(ApiResponse.success("Reports claimed successfully", claim));
+        } catch (Exception e) {
+            log.error("Error claiming reports for reviewer {}: {}", principal.getId(), e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to claim reports. Please try again later."));
+        }
+    }
+
+    @PostMapping("/decisions")
+    public ResponseEntity<ApiResponse<List<ReviewDecisionResultDTO>>> decideReports(
+            @RequestBody List<ReviewDecisionDTO> decisions,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        if (decisions == null || decisions.isEmpty() || decisions.size() > maxDecisions) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("A request must contain between 1 and " + maxDecisions + " decisions"));
+        }
+
+        try {
+            List<ReviewDecisionResultDTO> results = reportService.decideReports(decisions, principal.getId());
+            long decided = results.stream().filter(ReviewDecisionResultDTO::isSuccess).count();
+            return ResponseEntity.ok(ApiResponse.success(decided + " of " + results.size() + " reports decided", results));
+        } catch (Exception e) {
+            log.error("Error applying {} decisions for reviewer {}: {}", decisions.size(), principal.getId(), e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to apply decisions. Please try again later."));
+        }
+    }
+
     @PutMapping("/status/{reportId}")
-    public ResponseEntity<ApiResponse<ViolationReport>> updateStatus(
+    public ResponseEntity<ApiResponse<ViolationReportDTO>> updateStatus(
             @PathVariable Long reportId,
-            @RequestParam String status) {
+            @RequestParam String status,
+            @AuthenticationPrincipal UserPrincipal principal) {
         
-        log.info("Reviewer updating report {} status to: {}", reportId, status);
+        log.info("Reviewer {} updating report {} status to: {}", principal.getId(), reportId, status);
         
         try {
             // Validate status parameter
@@ -56,7 +142,7 @@ public class ReviewerController {
                 throw new IllegalArgumentException("Status parameter is required");
             }
             
-            ViolationReport updatedReport = reportService.updateReportStatus(reportId, status);
+            ViolationReportDTO updatedReport = reportService.updateReportStatus(reportId, status, principal.getId());
             log.info("Successfully updated report {} status to: {}", reportId, status);
             
             return ResponseEntity.ok(ApiResponse.success("Report status updated successfully", updatedReport));
@@ -64,6 +150,9 @@ public class ReviewerController {
         } catch (ResourceNotFoundException e) {
             log.warn("Report not found for status update: {}", reportId);
             return ResponseEntity.notFound().build();
+        } catch (LeaseNotHeldException e) {
+            log.warn("Rejected decision on report {} from reviewer {}: {}", reportId, principal.getId(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ApiResponse.error(e.getMessage()));
         } catch (IllegalArgumentException e) {
             log.warn("Invalid status parameter: {}", e.getMessage());
             return ResponseEntity.badRequest()
@@ -2,23 +2,27 @@ package com.vaahan.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.vaahan.dto.ApiResponse;
+import com.vaahan.dto.ReportPageDTO;
 import com.vaahan.dto.User.ForgotPasswordRequestDTO;
 import com.vaahan.dto.User.PasswordResetRequestDTO;
 import com.vaahan.dto.User.UserDTO;
 import com.vaahan.dto.User.UserResponseDTO;
+import com.vaahan.entities.SeverityLevel;
 import com.vaahan.entities.User;
+import com.vaahan.security.UserPrincipal;
 import com.vaahan.service.UserService;
+import com.vaahan.service.ViolationReportService;
 import com.vaahan.util.Mapper;
 
 import jakarta.validation.Valid;
@@ -33,18 +37,21 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ViolationReportService violationReportService;
+
     @Value("${app.frontend-url:http://localhost:3000}")
     private String frontendUrl;
 
     @GetMapping("/profile")
-    public ResponseEntity<ApiResponse<UserResponseDTO>> getCurrentUserProfile() {
+    public ResponseEntity<ApiResponse<UserResponseDTO>> getCurrentUserProfile(
+            @AuthenticationPrincipal UserPrincipal principal) {
         try {
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            String username = authentication.getName();
+            String username = principal.getUsername();
             
             log.info("Fetching profile for user: {}", username);
             
-            User user = userService.findByUsername(username)
+            User user = userService.findById(principal.getId())
                     .orElseThrow(() -> new RuntimeException("User not found"));
             
             UserResponseDTO userResponse = Mapper.toUserResponseDTO(user);
@@ -59,6 +66,34 @@ public class UserController {
         }
     }
 
+    @GetMapping("/reports")
+    public ResponseEntity<ApiResponse<ReportPageDTO>> getCurrentUserReports(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "severity", required = false) String severity,
+            @RequestParam(value = "category", required = false) String category,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        try {
+            SeverityLevel severityLevel = null;
+            if (severity != null && !severity.isBlank()) {
+                severityLevel = SeverityLevel.fromParameter(severity);
+                if (severityLevel == null) {
+                    throw new IllegalArgumentException("Unknown severity: " + severity);
+                }
+            }
+            ReportPageDTO page = violationReportService.getReportsByUser(principal.getId(), cursor, severityLevel,
+                    category, limit);
+            return ResponseEntity.ok(ApiResponse.success("Reports retrieved successfully", page));
+            
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error fetching reports of user {}: {}", principal.getId(), e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to retrieve reports. Please try again later."));
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<UserDTO> getUserById(@PathVariable Long id) {
         return ResponseEntity.ok(userService.getUserById(id));
@@ -14,11 +14,14 @@ import com.vaahan.dto.User.UserResponseDTO;
 import com.vaahan.entities.User;
 import com.vaahan.entities.UserRole;
 import com.vaahan.entities.UserStatus;
+import com.vaahan.exception.PasswordHashingRejectedException;
 import com.vaahan.exception.UserAlreadyExistsException;
+import com.vaahan.security.RateLimiter;
 import com.vaahan.service.OtpService;
 import com.vaahan.service.UserService;
 import com.vaahan.util.Mapper;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 
@@ -38,6 +41,9 @@ public class UserRegistrationController {
     @Autowired
     private OtpService otpService;
 
+    @Autowired
+    private RateLimiter rateLimiter;
+
     @PostMapping("/register")
     public ResponseEntity<ApiResponse<UserResponseDTO>> registerUser(
             @Valid @RequestBody UserRegistrationDTO registrationDTO) {
@@ -75,6 +81,9 @@ public class UserRegistrationController {
             
             return ResponseEntity.ok(ApiResponse.success("User registered successfully", userResponse));
 
+        } catch (PasswordHashingRejectedException e) {
+            // Handled by GlobalExceptionHandler as 503 with Retry-After
+            throw e;
         } catch (UserAlreadyExistsException e) {
             log.warn("Registration failed - user already exists: {}", e.getMessage());
             return ResponseEntity.badRequest()
@@ -87,12 +96,15 @@ public class UserRegistrationController {
     }
 
     @PostMapping("/verify-otp")
-    public ResponseEntity<ApiResponse<String>> verifyOtp(@RequestBody Map<String, String> payload) {
+    public ResponseEntity<ApiResponse<String>> verifyOtp(@RequestBody Map<String, String> payload,
+                                                         HttpServletRequest request) {
         String username = payload.get("username");
         String otp = payload.get("otp");
         
         log.info("OTP verification attempt for user: {}", username);
         
+        rateLimiter.check(RateLimiter.Endpoint.OTP_VERIFY, username, request.getRemoteAddr());
+
         try {
             // First, get the user to find their email
             User user = userService.findByUsername(username)
@@ -116,11 +128,14 @@ public class UserRegistrationController {
     }
 
     @PostMapping("/resend-otp")
-    public ResponseEntity<ApiResponse<String>> resendOtp(@RequestBody Map<String, String> payload) {
+    public ResponseEntity<ApiResponse<String>> resendOtp(@RequestBody Map<String, String> payload,
+                                                         HttpServletRequest request) {
         String username = payload.get("username");
         
         log.info("Resending OTP for user: {}", username);
         
+        rateLimiter.check(RateLimiter.Endpoint.OTP_SEND, username, request.getRemoteAddr());
+
         try {
             // First, get the user to find their email
             User user = userService.findByUsername(username)
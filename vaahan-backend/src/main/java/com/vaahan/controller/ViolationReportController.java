@@ -1,21 +1,37 @@
 package com.vaahan.controller;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.vaahan.dto.ApiResponse;
+import com.vaahan.dto.BatchReportItemDTO;
+import com.vaahan.dto.BatchReportResultDTO;
+import com.vaahan.dto.IngestStatusDTO;
 import com.vaahan.dto.ViolationReportDTO;
 import com.vaahan.entities.User;
 import com.vaahan.entities.ViolationReport;
+import com.vaahan.exception.FileStorageException;
+import com.vaahan.security.UserPrincipal;
+import com.vaahan.service.ReportIngestService;
 import com.vaahan.service.UserService;
 import com.vaahan.service.ViolationReportService;
+import com.vaahan.util.IdempotencyStore;
 import com.vaahan.util.Mapper;
 
 import lombok.extern.slf4j.Slf4j;
@@ -31,22 +47,61 @@ public class ViolationReportController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private ReportIngestService reportIngestService;
+
+    @Value("${reports.batch.max-size:10}")
+    private int maxBatchSize;
+
     @PostMapping
-    public ResponseEntity<ApiResponse<ViolationReportDTO>> submitReport(
+    public ResponseEntity<ApiResponse<?>> submitReport(
             @RequestParam("location") String location,
             @RequestParam("description") String description,
             @RequestParam("violationType") String violationType,
             @RequestParam(value = "vehicleNumber", required = false) String vehicleNumber,
             @RequestParam("severity") String severity,
-            @RequestParam("image") MultipartFile image) {
+            @RequestParam("image") MultipartFile image,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+            @AuthenticationPrincipal UserPrincipal principal) {
         
+        return idempotencyStore.execute(idempotencyKey, principal.getId(), "reports.submit",
+                () -> submitReport(location, description, vehicleNumber, image, principal));
+    }
+
+    @GetMapping("/ingest/{trackingId}")
+    public ResponseEntity<ApiResponse<IngestStatusDTO>> getIngestStatus(@PathVariable String trackingId,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        IngestStatusDTO status = reportIngestService.getStatus(trackingId, principal.getId());
+        if (status == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error("No report found for tracking id " + trackingId));
+        }
+        return ResponseEntity.ok(ApiResponse.success(status));
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ApiResponse<List<BatchReportResultDTO>>> submitReports(
+            @RequestPart("reports") List<BatchReportItemDTO> items,
+            @RequestPart("images") List<MultipartFile> images,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        
+        return idempotencyStore.execute(idempotencyKey, principal.getId(), "reports.batch",
+                () -> submitReports(items, images, principal));
+    }
+
+    private ResponseEntity<ApiResponse<?>> submitReport(String location, String description,
+            String vehicleNumber, MultipartFile image, UserPrincipal principal) {
+        if (reportIngestService.isEnabled()) {
+            return acceptReport(location, description, vehicleNumber, image, principal);
+        }
         try {
-            // Get current user
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            String username = authentication.getName();
-            
-            User user = userService.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
+            // Current user comes from the principal; a reference avoids loading the row
+            String username = principal.getUsername();
+            User user = userService.getReferenceById(principal.getId());
             
             log.info("User {} submitting violation report", username);
             
@@ -69,11 +124,75 @@ public class ViolationReportController {
             
             return ResponseEntity.ok(ApiResponse.success("Violation report submitted successfully", reportDTO));
             
+        } catch (FileStorageException e) {
+            log.error("Rejected violation report image: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Image upload failed: " + e.getMessage()));
         } catch (Exception e) {
             log.error("Error submitting violation report: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError()
                     .body(ApiResponse.error("Failed to submit report. Please try again later."));
         }
     }
-}
 
+    // Answers 202 as soon as the report is durable in the ingestion log
+    private ResponseEntity<ApiResponse<?>> acceptReport(String location, String description,
+            String vehicleNumber, MultipartFile image, UserPrincipal principal) {
+        try {
+            IngestStatusDTO status = reportIngestService.accept(principal.getId(), location, description,
+                    vehicleNumber, image);
+            return ResponseEntity.accepted()
+                    .body(ApiResponse.success("Violation report accepted for processing", status));
+
+        } catch (FileStorageException e) {
+            log.error("Rejected violation report image: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Image upload failed: " + e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error accepting violation report: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to submit report. Please try again later."));
+        }
+    }
+
+    private ResponseEntity<ApiResponse<List<BatchReportResultDTO>>> submitReports(List<BatchReportItemDTO> items,
+            List<MultipartFile> images, UserPrincipal principal) {
+        if (items.isEmpty() || items.size() > maxBatchSize) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("A batch must contain between 1 and " + maxBatchSize + " reports"));
+        }
+        if (images.size() != items.size()) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Each report in the batch needs exactly one image"));
+        }
+
+        try {
+            // One user reference for the whole batch
+            User user = userService.getReferenceById(principal.getId());
+            log.info("User {} submitting batch of {} violation reports", principal.getUsername(), items.size());
+
+            List<ViolationReport> reports = new ArrayList<>(items.size());
+            for (BatchReportItemDTO item : items) {
+                reports.add(ViolationReport.builder()
+                        .user(user)
+                        .location(item.getLocation())
+                        .description(item.getDescription())
+                        .vehicleNumber(item.getVehicleNumber())
+                        .imageUrl("") // Will be set after file upload
+                        .build());
+            }
+
+            List<BatchReportResultDTO> results = violationReportService.submitReports(reports, images);
+            long saved = results.stream().filter(BatchReportResultDTO::isSuccess).count();
+            
+            return ResponseEntity.ok(ApiResponse.success(saved + " of " + results.size() + " reports submitted", results));
+            
+        } catch (Exception e) {
+            log.error("Error submitting violation report batch: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to submit reports. Please try again later."));
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.vaahan.dto;
+
+
+import lombok.*;
+
+/**
+ * One report in a batch submission; same fields as the single-report form.
+ * The image is the part at the same position in the request's images list.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchReportItemDTO {
+    private String location;
+    private String description;
+    private String violationType;
+    private String vehicleNumber;
+    private String severity;
+}
@@ -0,0 +1,32 @@
+package com.vaahan.dto;
+
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchReportResultDTO {
+    private int index;
+    private boolean success;
+    private String message;
+    private ViolationReportDTO report;
+    // The failure was the database's, not the report's; the same report may save on a later attempt
+    @JsonIgnore
+    private boolean retryable;
+
+    public static BatchReportResultDTO success(int index, ViolationReportDTO report) {
+        return new BatchReportResultDTO(index, true, "Report submitted", report, false);
+    }
+
+    public static BatchReportResultDTO failure(int index, String message) {
+        return new BatchReportResultDTO(index, false, message, null, false);
+    }
+
+    public static BatchReportResultDTO retryableFailure(int index, String message) {
+        return new BatchReportResultDTO(index, false, message, null, true);
+    }
+}
@@ -0,0 +1,25 @@
+package com.vaahan.dto;
+
+
+import java.time.LocalDateTime;
+
+import lombok.*;
+
+/**
+ * Outcome of one evidence compaction run, which moves images of decided reports into pack files.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class CompactionReportDTO {
+    private LocalDateTime startedAt;
+    private long durationMs;
+    private long candidates;
+    private long packed; // Originals written to packs; their variants travel with them
+    private long packedBytes; // Written to new packs, variants included
+    private long looseFilesRemoved;
+    private long skipped; // Deleted since selection, or its bytes no longer match its name
+    private int packsWritten;
+    private int packsResumed; // Sealed by an earlier run that stopped before removing loose copies
+    private int packsFailed; // Failed verification; discarded and their images left loose
+}
@@ -0,0 +1,32 @@
+package com.vaahan.dto;
+
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestStatusDTO {
+
+    public enum State {
+        PENDING, COMPLETED, FAILED
+    }
+
+    private String trackingId;
+    private State state;
+    private String message;
+    private ViolationReportDTO report; // Only set once the report is saved
+
+    public static IngestStatusDTO pending(String trackingId) {
+        return new IngestStatusDTO(trackingId, State.PENDING, "Report accepted for processing", null);
+    }
+
+    public static IngestStatusDTO completed(String trackingId, ViolationReportDTO report) {
+        return new IngestStatusDTO(trackingId, State.COMPLETED, "Report submitted", report);
+    }
+
+    public static IngestStatusDTO failed(String trackingId, String message) {
+        return new IngestStatusDTO(trackingId, State.FAILED, message, null);
+    }
+}
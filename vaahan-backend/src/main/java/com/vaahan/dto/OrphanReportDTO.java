@@ -0,0 +1,29 @@
+package com.vaahan.dto;
+
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.*;
+
+/**
+ * Outcome of one orphan collection run. In a dry run orphans are counted and listed but left in place.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class OrphanReportDTO {
+    private boolean dryRun;
+    private String action; // "delete" or "quarantine"
+    private LocalDateTime startedAt;
+    private long durationMs;
+    private long filesScanned;
+    private long referenced;
+    private long skippedRecent; // Unreferenced but inside the grace period
+    private long orphans;
+    private long orphanBytes;
+    private long removed;
+    private long leftoversRemoved; // Stale .part staging files and variants without an original
+    private List<String> sample = new ArrayList<>(); // First orphans found, capped
+}
@@ -0,0 +1,19 @@
+package com.vaahan.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import lombok.*;
+
+/**
+ * Reports leased to one reviewer. Decisions are accepted from that reviewer until leaseExpiresAt,
+ * after which undecided reports go back to the pool; claiming again renews the lease.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportClaimDTO {
+    private List<ViolationReportDTO> items;
+    private LocalDateTime leaseExpiresAt;
+}
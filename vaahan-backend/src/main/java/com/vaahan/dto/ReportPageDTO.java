@@ -0,0 +1,18 @@
+package com.vaahan.dto;
+
+import java.util.List;
+
+import lombok.*;
+
+/**
+ * One page of a report listing. nextCursor is passed back as ?cursor= to get the following page
+ * and is null on the last one.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportPageDTO {
+    private List<ViolationReportDTO> items;
+    private String nextCursor;
+}
@@ -0,0 +1,16 @@
+package com.vaahan.dto;
+
+
+import lombok.*;
+
+/**
+ * One report in a bulk review decision; status is APPROVED or REJECTED
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewDecisionDTO {
+    private Long reportId;
+    private String status;
+}
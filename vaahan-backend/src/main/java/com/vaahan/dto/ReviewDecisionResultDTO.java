@@ -0,0 +1,23 @@
+package com.vaahan.dto;
+
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewDecisionResultDTO {
+    private Long reportId;
+    private boolean success;
+    private String message;
+    private ViolationReportDTO report;
+
+    public static ReviewDecisionResultDTO success(ViolationReportDTO report, String message) {
+        return new ReviewDecisionResultDTO(report.getReportId(), true, message, report);
+    }
+
+    public static ReviewDecisionResultDTO failure(Long reportId, String message) {
+        return new ReviewDecisionResultDTO(reportId, false, message, null);
+    }
+}
@@ -0,0 +1,40 @@
+package com.vaahan.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.vaahan.entities.ReportStatus;
+
+/**
+ * A change to the review queue, published by the report service and streamed to reviewers
+ * as a server-sent event named by type, with data as its JSON payload
+ */
+public record ReviewQueueEvent(String type, Object data) {
+
+    public static final String SUBMITTED = "report-submitted";
+    public static final String CLAIMED = "report-claimed";
+    public static final String DECIDED = "report-decided";
+    // Sent instead of a replay when the missed events are no longer retained; the client reloads the queue
+    public static final String RESET = "reset";
+
+    public record Claim(Long reviewerId, List<Long> reportIds, LocalDateTime leaseExpiresAt) {
+    }
+
+    public record Decision(Long reportId, ReportStatus status) {
+    }
+
+    public record Decisions(Long reviewerId, List<Decision> decisions) {
+    }
+
+    public static ReviewQueueEvent submitted(List<ViolationReportDTO> reports) {
+        return new ReviewQueueEvent(SUBMITTED, reports);
+    }
+
+    public static ReviewQueueEvent claimed(Long reviewerId, List<Long> reportIds, LocalDateTime leaseExpiresAt) {
+        return new ReviewQueueEvent(CLAIMED, new Claim(reviewerId, reportIds, leaseExpiresAt));
+    }
+
+    public static ReviewQueueEvent decided(Long reviewerId, List<Decision> decisions) {
+        return new ReviewQueueEvent(DECIDED, new Decisions(reviewerId, decisions));
+    }
+}
@@ -0,0 +1,15 @@
+package com.vaahan.dto;
+
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StorageUsageDTO {
+    private long blobCount;
+    private long totalBytes;
+    private Long userId;
+    private Long userBytes; // Only set when usage for a user was requested
+}
@@ -0,0 +1,22 @@
+package com.vaahan.dto;
+
+
+import lombok.*;
+
+/**
+ * Result of storing an uploaded image: its stored name plus the digest, size, type and dimensions
+ * recorded for it. deduplicated is set when the content was already stored. perceptualHash is null
+ * when the image could not be decoded.
+ */
+@Getter
+@AllArgsConstructor
+public class StoredFile {
+    private String fileName;
+    private String sha256;
+    private long size;
+    private String contentType;
+    private Integer width;
+    private Integer height;
+    private Long perceptualHash;
+    private boolean deduplicated;
+}
@@ -6,10 +6,15 @@ import java.time.LocalDateTime;
 
 import com.vaahan.entities.ReportStatus;
 import com.vaahan.entities.SeverityLevel;
+import com.vaahan.util.ImageVariant;
+import com.vaahan.util.Mapper;
 
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 
 @Builder
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
 public class ViolationReportDTO {
     private Long reportId;
     private Long userId;
@@ -19,11 +24,24 @@ public class ViolationReportDTO {
     private String vehicleNumber;
     private String vehicleType;
     private String imageUrl;
+    private String thumbnailUrl;
+    private String previewUrl;
+    private Long duplicateOf; // Earliest report with a near-identical image, for collapsing the review queue
     private LocalDateTime submissionTimestamp;
     private ReportStatus status;
     private String violationCategory;
     private SeverityLevel severityLevel;
 
+    // Constructor projection for listings: JPQL "select new" builds the DTO without loading entities
+    public ViolationReportDTO(Long reportId, Long userId, String title, String description, String location,
+                              String vehicleNumber, String vehicleType, String imageUrl, Long duplicateOf,
+                              LocalDateTime submissionTimestamp, ReportStatus status, String violationCategory,
+                              SeverityLevel severityLevel) {
+        this(reportId, userId, title, description, location, vehicleNumber, vehicleType, imageUrl,
+                Mapper.variantUrl(imageUrl, ImageVariant.THUMBNAIL), Mapper.variantUrl(imageUrl, ImageVariant.PREVIEW),
+                duplicateOf, submissionTimestamp, status, violationCategory, severityLevel);
+    }
+
     // Getters and Setters
     public Long getReportId() {
         return reportId;
@@ -112,4 +130,23 @@ public class ViolationReportDTO {
 	public void setImageUrl(String imageUrl) {
 		this.imageUrl = imageUrl;
 	}
+
+	public String getThumbnailUrl() {
+		return thumbnailUrl;
+	}
+	public void setThumbnailUrl(String thumbnailUrl) {
+		this.thumbnailUrl = thumbnailUrl;
+	}
+	public String getPreviewUrl() {
+		return previewUrl;
+	}
+	public void setPreviewUrl(String previewUrl) {
+		this.previewUrl = previewUrl;
+	}
+	public Long getDuplicateOf() {
+		return duplicateOf;
+	}
+	public void setDuplicateOf(Long duplicateOf) {
+		this.duplicateOf = duplicateOf;
+	}
 }
@@ -0,0 +1,61 @@
+package com.vaahan.entities;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A stored evidence image, addressed by the SHA-256 of its content, with the metadata recorded at upload.
+ * refCount is the number of uploads resolved to this blob; the file is unlinked when it drops to zero.
+ */
+@Entity
+@Table(name = "evidence_blobs", indexes = @Index(name = "idx_evidence_blobs_uploader", columnList = "uploaderId"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EvidenceBlob {
+
+    @Id
+    @Column(length = 64)
+    private String sha256;
+
+    @Column(nullable = false, unique = true, length = 80)
+    private String fileName;
+
+    @Column(nullable = false)
+    private int refCount;
+
+    private Long sizeBytes;
+
+    @Column(length = 32)
+    private String contentType;
+
+    // Null when the format has no ImageIO reader
+    private Integer width;
+
+    private Integer height;
+
+    // 64-bit dHash for near-duplicate detection; null until computed or when the image cannot be decoded
+    private Long perceptualHash;
+
+    // Pack file holding the image and its variants once compaction has moved them out of the shard directories
+    private Integer packId;
+
+    // The user whose upload first stored this content; duplicates are not charged again
+    private Long uploaderId;
+
+    @Builder.Default
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
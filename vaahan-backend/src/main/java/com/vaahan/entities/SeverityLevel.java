@@ -1,5 +1,17 @@
 package com.vaahan.entities;
 
 public enum SeverityLevel {
-	Low, Medium, High, Extreme
+	Low, Medium, High, Extreme;
+
+	/**
+	 * @return The level named by a request parameter, ignoring case, or null for an unknown name
+	 */
+	public static SeverityLevel fromParameter(String parameter) {
+		for (SeverityLevel level : values()) {
+			if (level.name().equalsIgnoreCase(parameter)) {
+				return level;
+			}
+		}
+		return null;
+	}
 }
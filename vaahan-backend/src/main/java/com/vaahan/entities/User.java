@@ -12,14 +12,12 @@ import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
 @Table(name = "users")
-@Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
@@ -75,12 +73,20 @@ public class User {
     
     @Enumerated(EnumType.STRING)
     private UserRole role;
+
+    @Builder.Default
+    private int securityVersion = 0; // Bumped on role/status/password changes to revoke issued tokens
     
     
     public boolean isEnabled() {
         return this.accountStatus == UserStatus.ACTIVE; // Or your enum logic
     }
 
+    // Approved reports count toward the reporter's track record, which ranks their pending reports for review
+    public void addValidReports(int count) {
+        this.totalValidReports += count;
+    }
+
     // Method to add VCoins to user balance
     public void addVCoins(int coins) {
         this.vCoins += coins;
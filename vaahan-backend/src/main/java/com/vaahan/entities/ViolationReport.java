@@ -10,8 +10,13 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedSubgraph;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -19,14 +24,23 @@ import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
-@Table(name = "violation_reports")
-@Data
+// Associations are lazy; each read path names the graph it maps so a report costs one statement
+@NamedEntityGraph(name = ViolationReport.GRAPH_DETAIL,
+        attributeNodes = @NamedAttributeNode(value = "violation", subgraph = "violation"),
+        subgraphs = @NamedSubgraph(name = "violation", attributeNodes = @NamedAttributeNode("category")))
+@NamedEntityGraph(name = ViolationReport.GRAPH_REVIEW,
+        attributeNodes = { @NamedAttributeNode(value = "violation", subgraph = "violation"), @NamedAttributeNode("user") },
+        subgraphs = @NamedSubgraph(name = "violation", attributeNodes = @NamedAttributeNode("category")))
+// image_url is indexed for the orphan collector, which walks it in order; the others serve keyset-paginated listings
+@Table(name = "violation_reports", indexes = {
+        @Index(name = "idx_violation_reports_image_url", columnList = "imageUrl"),
+        @Index(name = "idx_violation_reports_status_submitted", columnList = "status, submissionTimestamp, reportId"),
+        @Index(name = "idx_violation_reports_user_submitted", columnList = "user_id, submissionTimestamp, reportId") })
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
@@ -34,8 +48,14 @@ import lombok.Setter;
 @Setter
 public class ViolationReport {
 
+    public static final int ID_ALLOCATION_SIZE = 50;
+    public static final String GRAPH_DETAIL = "ViolationReport.detail";
+    public static final String GRAPH_REVIEW = "ViolationReport.review";
+
+    // Pooled sequence (a table on MySQL) so inserts can be JDBC-batched; IDENTITY forces one round trip per row
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "violation_report_seq")
+    @SequenceGenerator(name = "violation_report_seq", sequenceName = "violation_report_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long reportId;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -66,12 +86,12 @@ public class ViolationReport {
     @Column(nullable = false)
     private ReportStatus status = ReportStatus.PENDING;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "violation_id", nullable = false)
     @NotNull(message = "Violation must be specified")
     private Violation violation;
     
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id", nullable = false)
     private ViolationCategory violationCategory;
 
@@ -80,4 +100,19 @@ public class ViolationReport {
     private LocalDateTime submissionTimestamp = LocalDateTime.now();
 
     private String imageUrl;
+
+    // Perceptual hash of the evidence image, indexed in memory to spot the same incident reported twice
+    private Long imageHash;
+
+    // Earliest report whose evidence looked like the same image when this one was submitted
+    private Long duplicateOf;
+
+    // Tracking id of a report accepted through the ingestion log; lets a replayed entry detect it was already saved
+    @Column(unique = true, length = 36, updatable = false)
+    private String ingestId;
+
+    // Reviewer working on the report until claimExpiresAt; a lapsed claim is free for anyone to take
+    private Long claimedBy;
+
+    private LocalDateTime claimExpiresAt;
 }
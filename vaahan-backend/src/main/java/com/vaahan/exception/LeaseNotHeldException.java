@@ -0,0 +1,11 @@
+package com.vaahan.exception;
+
+/**
+ * A review decision from someone who does not hold the report's claim, or whose lease has lapsed
+ */
+public class LeaseNotHeldException extends RuntimeException {
+
+    public LeaseNotHeldException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package com.vaahan.exception;
+
+public class PasswordHashingRejectedException extends RuntimeException {
+    
+    private final long retryAfterSeconds;
+    
+    public PasswordHashingRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,70 @@
+package com.vaahan.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.vaahan.entities.EvidenceBlob;
+import com.vaahan.entities.ReportStatus;
+
+public interface EvidenceBlobRepository extends JpaRepository<EvidenceBlob, String> {
+
+    Optional<EvidenceBlob> findByFileName(String fileName);
+
+    /**
+     * Create the blob row or add references to an existing one in a single statement.
+     * Metadata is only written by the insert; a duplicate keeps what the first upload recorded.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "insert into evidence_blobs (sha256, file_name, ref_count, size_bytes, content_type, width, height, perceptual_hash, uploader_id, created_at) "
+            + "values (:sha256, :fileName, :references, :sizeBytes, :contentType, :width, :height, :perceptualHash, :uploaderId, now()) "
+            + "on duplicate key update ref_count = ref_count + :references", nativeQuery = true)
+    int acquire(String sha256, String fileName, int references, Long sizeBytes, String contentType,
+                Integer width, Integer height, Long perceptualHash, Long uploaderId);
+
+    @Transactional
+    @Modifying
+    @Query("update EvidenceBlob b set b.perceptualHash = :perceptualHash where b.sha256 = :sha256")
+    int setPerceptualHash(String sha256, Long perceptualHash);
+
+    @Query("select coalesce(sum(b.sizeBytes), 0) from EvidenceBlob b")
+    long sumSizeBytes();
+
+    @Query("select coalesce(sum(b.sizeBytes), 0) from EvidenceBlob b where b.uploaderId = :uploaderId")
+    long sumSizeBytesByUploader(Long uploaderId);
+
+    @Transactional
+    @Modifying
+    @Query("update EvidenceBlob b set b.refCount = b.refCount - 1 where b.sha256 = :sha256 and b.refCount > 0")
+    int release(String sha256);
+
+    @Transactional
+    @Modifying
+    @Query("delete from EvidenceBlob b where b.sha256 = :sha256 and b.refCount <= 0")
+    int deleteIfUnreferenced(String sha256);
+
+    /**
+     * Loose blobs older than the cutoff whose reports have all been decided, in sha256 order after the given one.
+     * Reports point at blobs by URL, so the match goes through the image_url index.
+     */
+    @Query("select b from EvidenceBlob b where b.packId is null and b.refCount > 0 and b.createdAt < :cutoff and b.sha256 > :after "
+            + "and exists (select r.reportId from ViolationReport r where r.imageUrl = concat(:urlPrefix, b.fileName) and r.status <> :pending) "
+            + "and not exists (select r.reportId from ViolationReport r where r.imageUrl = concat(:urlPrefix, b.fileName) and r.status = :pending) "
+            + "order by b.sha256")
+    List<EvidenceBlob> findPackCandidates(String urlPrefix, ReportStatus pending, LocalDateTime cutoff, String after,
+                                          Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("update EvidenceBlob b set b.packId = :packId where b.sha256 in :sha256s and b.packId is null")
+    int markPacked(Collection<String> sha256s, Integer packId);
+}
@@ -1,9 +1,14 @@
 package com.vaahan.repository;
 
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.vaahan.entities.User;
 
@@ -15,6 +20,23 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByEmail(String email);
     Optional<User> findByUsernameOrEmail(String username, String email);
     Optional<User> findByResetToken(String resetToken);
+
+    @Query("select u.id, u.securityVersion from User u where u.securityVersion > 0")
+    List<Object[]> findRevisedSecurityVersions();
+
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :password where u.username = :username")
+    int updatePasswordByUsername(String username, String password);
+
+    @Transactional
+    @Modifying
+    @Query("update User u set u.totalReports = u.totalReports + :count where u.id = :userId")
+    int addTotalReports(Long userId, int count);
+
+    // Reporter track records, for ranking their pending reports
+    @Query("select u.id, u.totalReports, u.totalValidReports from User u where u.id in :userIds")
+    List<Object[]> findReportCountsByIdIn(Collection<Long> userIds);
 }
 
 
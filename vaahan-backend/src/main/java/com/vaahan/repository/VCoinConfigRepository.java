@@ -1,5 +1,6 @@
 package com.vaahan.repository;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -14,4 +15,6 @@ public interface VCoinConfigRepository extends JpaRepository<VCoinConfig, Long>
     Optional<VCoinConfig> findBySeverityLevelAndIsActiveTrue(SeverityLevel severityLevel);
     
     Optional<VCoinConfig> findBySeverityLevel(SeverityLevel severityLevel);
+
+    List<VCoinConfig> findByIsActiveTrue();
 } 
\ No newline at end of file
@@ -1,16 +1,172 @@
 package com.vaahan.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
+import com.vaahan.dto.ViolationReportDTO;
 import com.vaahan.entities.ReportStatus;
+import com.vaahan.entities.SeverityLevel;
 import com.vaahan.entities.ViolationReport;
 
+import jakarta.persistence.LockModeType;
+
 
 public interface ViolationReportRepository extends JpaRepository<ViolationReport, Long> {
-	
-	List<ViolationReport> findByUser_Id(Long userId);
 
-    List<ViolationReport> findByStatus(ReportStatus status);
+    /**
+     * Reports in a status, oldest first, after the given (submissionTimestamp, reportId) position.
+     * Projected straight into DTOs; severity and category filters are skipped when null.
+     */
+    @Query("select new com.vaahan.dto.ViolationReportDTO(r.reportId, r.user.id, r.title, r.description, r.location, "
+            + "r.vehicleNumber, r.vehicleType, r.imageUrl, r.duplicateOf, r.submissionTimestamp, r.status, "
+            + "c.categoryName, v.severityLevel) "
+            + "from ViolationReport r left join r.violation v left join v.category c "
+            + "where r.status = :status "
+            + "and (r.submissionTimestamp > :afterTimestamp or (r.submissionTimestamp = :afterTimestamp and r.reportId > :afterId)) "
+            + "and (:severity is null or v.severityLevel = :severity) and (:category is null or c.categoryName = :category) "
+            + "order by r.submissionTimestamp, r.reportId")
+    List<ViolationReportDTO> findPageByStatus(ReportStatus status, LocalDateTime afterTimestamp, Long afterId,
+                                              SeverityLevel severity, String category, Pageable page);
+
+    /**
+     * A user's reports, newest first, before the given (submissionTimestamp, reportId) position
+     */
+    @Query("select new com.vaahan.dto.ViolationReportDTO(r.reportId, r.user.id, r.title, r.description, r.location, "
+            + "r.vehicleNumber, r.vehicleType, r.imageUrl, r.duplicateOf, r.submissionTimestamp, r.status, "
+            + "c.categoryName, v.severityLevel) "
+            + "from ViolationReport r left join r.violation v left join v.category c "
+            + "where r.user.id = :userId "
+            + "and (r.submissionTimestamp < :beforeTimestamp or (r.submissionTimestamp = :beforeTimestamp and r.reportId < :beforeId)) "
+            + "and (:severity is null or v.severityLevel = :severity) and (:category is null or c.categoryName = :category) "
+            + "order by r.submissionTimestamp desc, r.reportId desc")
+    List<ViolationReportDTO> findPageByUser(Long userId, LocalDateTime beforeTimestamp, Long beforeId,
+                                            SeverityLevel severity, String category, Pageable page);
+
+    /**
+     * A report with its violation and category, as {@link com.vaahan.util.Mapper} reads them
+     */
+    @EntityGraph(ViolationReport.GRAPH_DETAIL)
+    Optional<ViolationReport> findDetailByReportId(Long reportId);
+
+    /**
+     * A report with what a status decision touches: the violation's severity and the reporter's balance
+     */
+    @EntityGraph(ViolationReport.GRAPH_REVIEW)
+    Optional<ViolationReport> findForReviewByReportId(Long reportId);
+
+    @EntityGraph(ViolationReport.GRAPH_REVIEW)
+    List<ViolationReport> findForReviewByReportIdIn(Collection<Long> reportIds);
+
+    @EntityGraph(ViolationReport.GRAPH_DETAIL)
+    Optional<ViolationReport> findByIngestId(String ingestId);
+
+    /**
+     * Lock up to limit pending reports, oldest first, that are unclaimed, past their lease or already held by
+     * the reviewer. Rows another reviewer is claiming right now are skipped instead of waited on.
+     */
+    @Query(value = "select report_id from violation_reports where status = 'PENDING' "
+            + "and (claim_expires_at is null or claim_expires_at < :now or claimed_by = :reviewerId) "
+            + "order by submission_timestamp, report_id limit :limit for update skip locked", nativeQuery = true)
+    List<Long> lockClaimable(Long reviewerId, LocalDateTime now, int limit);
+
+    /**
+     * Like {@link #lockClaimable} but over chosen reports, for claims that pick candidates from the priority index
+     */
+    @Query(value = "select report_id from violation_reports where report_id in (:reportIds) and status = 'PENDING' "
+            + "and (claim_expires_at is null or claim_expires_at < :now or claimed_by = :reviewerId) "
+            + "for update skip locked", nativeQuery = true)
+    List<Long> lockClaimableIn(Collection<Long> reportIds, Long reviewerId, LocalDateTime now);
+
+    @Modifying
+    @Query("update ViolationReport r set r.claimedBy = :reviewerId, r.claimExpiresAt = :expiresAt "
+            + "where r.reportId in :reportIds")
+    int claim(Collection<Long> reportIds, Long reviewerId, LocalDateTime expiresAt);
+
+    @Query("select new com.vaahan.dto.ViolationReportDTO(r.reportId, r.user.id, r.title, r.description, r.location, "
+            + "r.vehicleNumber, r.vehicleType, r.imageUrl, r.duplicateOf, r.submissionTimestamp, r.status, "
+            + "c.categoryName, v.severityLevel) "
+            + "from ViolationReport r left join r.violation v left join v.category c "
+            + "where r.reportId in :reportIds order by r.submissionTimestamp, r.reportId")
+    List<ViolationReportDTO> findDtosByReportIdIn(Collection<Long> reportIds);
+
+    /**
+     * Record a decision and release the claim, provided the reviewer still holds an unexpired lease on the report
+     * @return 1, or 0 if the report is not pending or not leased to the reviewer
+     */
+    @Modifying
+    @Query("update ViolationReport r set r.status = :status, r.claimedBy = null, r.claimExpiresAt = null "
+            + "where r.reportId = :reportId and r.status = com.vaahan.entities.ReportStatus.PENDING "
+            + "and r.claimedBy = :reviewerId and r.claimExpiresAt > :now")
+    int decide(Long reportId, Long reviewerId, ReportStatus status, LocalDateTime now);
+
+    /**
+     * Lock the given reports that are pending and leased to the reviewer, so a bulk decision
+     * can apply to them without a claim or another decision slipping in before commit
+     * @return The ids of the reports the reviewer may decide
+     */
+    @Query(value = "select report_id from violation_reports where report_id in (:reportIds) and status = 'PENDING' "
+            + "and claimed_by = :reviewerId and claim_expires_at > :now for update", nativeQuery = true)
+    List<Long> lockDecidable(Collection<Long> reportIds, Long reviewerId, LocalDateTime now);
+
+    @Modifying
+    @Query("update ViolationReport r set r.status = :status, r.claimedBy = null, r.claimExpiresAt = null "
+            + "where r.reportId in :reportIds")
+    int decideAll(Collection<Long> reportIds, ReportStatus status);
+
+    @Query("select r.reportId from ViolationReport r where r.reportId in :reportIds")
+    List<Long> findIdsByReportIdIn(Collection<Long> reportIds);
+
+    // The rest of this block loads the review priority index at startup
+
+    @Query("select new com.vaahan.dto.ViolationReportDTO(r.reportId, r.user.id, r.title, r.description, r.location, "
+            + "r.vehicleNumber, r.vehicleType, r.imageUrl, r.duplicateOf, r.submissionTimestamp, r.status, "
+            + "c.categoryName, v.severityLevel) "
+            + "from ViolationReport r left join r.violation v left join v.category c where r.status = :status")
+    List<ViolationReportDTO> findDtosByStatus(ReportStatus status);
+
+    @Query("select r.reportId, r.claimedBy, r.claimExpiresAt from ViolationReport r "
+            + "where r.status = :status and r.claimedBy is not null")
+    List<Object[]> findClaimsByStatus(ReportStatus status);
+
+    @Query("select distinct u.id, u.totalReports, u.totalValidReports from ViolationReport r join r.user u "
+            + "where r.status = :status")
+    List<Object[]> findReporterStatsByStatus(ReportStatus status);
+
+    @Query("select r.ingestId from ViolationReport r where r.ingestId in :ingestIds")
+    List<String> findIngestIdsIn(Collection<String> ingestIds);
+
+    @Query("select r.reportId, r.imageHash from ViolationReport r where r.imageHash is not null")
+    List<Object[]> findImageHashes();
+
+    @Query("select distinct r.imageUrl from ViolationReport r where r.imageHash is null and r.imageUrl <> ''")
+    List<String> findImageUrlsWithoutHash();
+
+    // Locked, so the rows hashed are exactly the rows returned
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r.reportId from ViolationReport r where r.imageUrl = :imageUrl and r.imageHash is null")
+    List<Long> lockIdsWithoutHashByImageUrl(String imageUrl);
+
+    // Keyset pagination over the image_url index, for streaming references in file-name order
+    @Query("select distinct r.imageUrl from ViolationReport r where r.imageUrl like :prefix and r.imageUrl > :after order by r.imageUrl")
+    List<String> findImageUrlsAfter(String prefix, String after, Pageable page);
+
+    @Query("select distinct r.imageUrl from ViolationReport r where r.imageUrl <> '' and r.imageUrl not like :prefix")
+    List<String> findImageUrlsNotLike(String prefix, Pageable page);
+
+    @Modifying
+    @Query("update ViolationReport r set r.imageHash = :imageHash where r.reportId in :reportIds")
+    int setImageHash(Collection<Long> reportIds, Long imageHash);
+
+    @Modifying
+    @Query("update ViolationReport r set r.imageUrl = :imageUrl where r.imageUrl like :imageUrlPattern")
+    int repointImageUrl(String imageUrlPattern, String imageUrl);
 }
@@ -1,31 +1,34 @@
 package com.vaahan.security;
 
-import java.util.Collections;
-import java.util.List;
-
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import com.vaahan.entities.User;
-import com.vaahan.entities.UserStatus;
 import com.vaahan.repository.UserRepository;
 
 import lombok.extern.slf4j.Slf4j;
 
 @Service
 @Slf4j
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        UserPrincipal cached = userDetailsCache.get(username);
+        if (cached != null) {
+            return cached;
+        }
+
         log.debug("Loading user details for username/email: {}", username);
         
         User user = userRepository.findByUsernameOrEmail(username, username)
@@ -34,23 +37,25 @@ public class CustomUserDetailsService implements UserDetailsService {
                     return new UsernameNotFoundException("User not found with username or email: " + username);
                 });
 
-        List<GrantedAuthority> authorities = Collections.singletonList(
-            new SimpleGrantedAuthority("ROLE_" + user.getRole().name())
-        );
-
-        boolean isEnabled = user.getAccountStatus() == UserStatus.ACTIVE;
-        
         log.debug("User found: {} with role: {} and status: {}", 
                  user.getUsername(), user.getRole(), user.getAccountStatus());
 
-        return new org.springframework.security.core.userdetails.User(
-                user.getUsername(),
-                user.getPassword(),
-                isEnabled, // enabled
-                true, // accountNonExpired
-                true, // credentialsNonExpired
-                true, // accountNonLocked
-                authorities
-        );
+        UserPrincipal principal = UserPrincipal.from(user);
+        userDetailsCache.put(principal, user.getEmail());
+        return principal;
+    }
+
+    // Called after a successful login whose stored hash uses an outdated scheme or cost
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        log.info("Upgrading password hash for user: {}", user.getUsername());
+        userRepository.updatePasswordByUsername(user.getUsername(), newPassword);
+        userDetailsCache.invalidate(user.getUsername());
+
+        if (user instanceof UserPrincipal principal) {
+            return new UserPrincipal(principal.getId(), principal.getUsername(), newPassword,
+                    principal.getRole(), principal.getSecurityVersion(), principal.isEnabled());
+        }
+        return loadUserByUsername(user.getUsername());
     }
 }
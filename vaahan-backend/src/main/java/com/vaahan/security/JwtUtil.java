@@ -3,62 +3,158 @@ package com.vaahan.security;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import com.vaahan.entities.UserRole;
+
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+
 import java.security.Key;
 
 @Component
 public class JwtUtil {
 
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_SECURITY_VERSION = "sv";
+    public static final String CLAIM_TOKEN_TYPE = "typ";
+    public static final String TOKEN_TYPE_ACCESS = "access";
+    public static final String TOKEN_TYPE_REFRESH = "refresh";
+
     @Value("${jwt.secret}")
     private String secret;
 
     @Value("${jwt.expirationMs}")
-    private int expirationMs;
+    private long expirationMs;
+
+    @Value("${jwt.refreshExpirationMs:604800000}")
+    private long refreshExpirationMs;
+
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    // Key and parser are immutable and thread-safe, so build them once
+    private Key signingKey;
+    private JwtParser jwtParser;
 
-    private Key getSigningKey() {
-        byte[] keyBytes = secret.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
     }
 
     public String generateToken(UserDetails userDetails) {
-        Map<String, Object> claims = new HashMap<>();
+        Map<String, Object> claims = principalClaims(userDetails);
         claims.put("authorities", userDetails.getAuthorities());
-        
+        claims.put(CLAIM_TOKEN_TYPE, TOKEN_TYPE_ACCESS);
+        return buildToken(claims, userDetails.getUsername(), expirationMs);
+    }
+
+    /**
+     * Generate a long-lived refresh token; it is single use and rotated on every refresh
+     * @param userDetails The authenticated user
+     * @return The signed refresh token
+     */
+    public String generateRefreshToken(UserDetails userDetails) {
+        Map<String, Object> claims = principalClaims(userDetails);
+        claims.put(CLAIM_TOKEN_TYPE, TOKEN_TYPE_REFRESH);
+        return buildToken(claims, userDetails.getUsername(), refreshExpirationMs);
+    }
+
+    public boolean isAccessToken(Claims claims) {
+        // Tokens issued before the type claim existed are access tokens
+        String type = claims.get(CLAIM_TOKEN_TYPE, String.class);
+        return type == null || TOKEN_TYPE_ACCESS.equals(type);
+    }
+
+    public boolean isRefreshToken(Claims claims) {
+        return TOKEN_TYPE_REFRESH.equals(claims.get(CLAIM_TOKEN_TYPE, String.class));
+    }
+
+    private Map<String, Object> principalClaims(UserDetails userDetails) {
+        Map<String, Object> claims = new HashMap<>();
+        if (userDetails instanceof UserPrincipal principal) {
+            claims.put(CLAIM_USER_ID, principal.getId());
+            claims.put(CLAIM_ROLE, principal.getRole().name());
+            claims.put(CLAIM_SECURITY_VERSION, principal.getSecurityVersion());
+        }
+        return claims;
+    }
+
+    private String buildToken(Map<String, Object> claims, String subject, long lifetimeMs) {
+        long now = System.currentTimeMillis();
         return Jwts.builder()
                 .setClaims(claims)
-                .setSubject(userDetails.getUsername())
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + expirationMs))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .setId(UUID.randomUUID().toString())
+                .setSubject(subject)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + lifetimeMs))
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 
+    /**
+     * Parse and verify a token once, serving repeat presentations from the verified-token cache.
+     * @param token The raw compact JWT
+     * @return The verified claims
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, tampered with or expired
+     */
+    public Claims parseClaims(String token) {
+        Claims claims = verifiedTokenCache.get(token, this::getClaims);
+        if (isTokenExpired(claims)) {
+            throw new ExpiredJwtException(null, claims, "JWT expired at " + claims.getExpiration());
+        }
+        return claims;
+    }
+
     public String extractUsername(String token) {
-        return getClaims(token).getSubject();
+        return parseClaims(token).getSubject();
     }
 
     public boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return username.equals(userDetails.getUsername()) && !isTokenExpired(token);
+        return validateToken(parseClaims(token), userDetails);
+    }
+
+    public boolean validateToken(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername()) && !isTokenExpired(claims);
+    }
+
+    /**
+     * Build a principal straight from the token claims, without touching the database.
+     * @param claims Verified claims
+     * @return The principal, or null if the token predates the embedded user claims
+     */
+    public UserPrincipal toPrincipal(Claims claims) {
+        Number userId = claims.get(CLAIM_USER_ID, Number.class);
+        String role = claims.get(CLAIM_ROLE, String.class);
+        Number securityVersion = claims.get(CLAIM_SECURITY_VERSION, Number.class);
+        if (userId == null || role == null || securityVersion == null) {
+            return null;
+        }
+        return new UserPrincipal(userId.longValue(), claims.getSubject(), null,
+                UserRole.valueOf(role), securityVersion.intValue(), true);
     }
 
     private Claims getClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
+        return jwtParser
                 .parseClaimsJws(token)
                 .getBody();
     }
 
-    private boolean isTokenExpired(String token) {
-        return getClaims(token).getExpiration().before(new Date());
+    private boolean isTokenExpired(Claims claims) {
+        return claims.getExpiration().before(new Date());
     }
 }
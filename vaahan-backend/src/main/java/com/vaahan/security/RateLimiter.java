@@ -0,0 +1,158 @@
+package com.vaahan.security;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vaahan.exception.RateLimitExceededException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Token-bucket throttle for credential and OTP endpoints, keyed by account and by client IP.
+ * Called before any hashing, database or mail work. Buckets live in a bounded cache and are
+ * dropped once idle for a full window, at which point they would have refilled anyway.
+ */
+@Component
+@Slf4j
+public class RateLimiter {
+
+    public enum Endpoint {
+        LOGIN, OTP_VERIFY, OTP_SEND
+    }
+
+    private static final int STRIPES = 64; // power of two
+
+    @Value("${rate-limit.window-seconds:60}")
+    private long windowSeconds;
+
+    @Value("${rate-limit.max-keys:1000000}")
+    private long maxKeys;
+
+    @Value("${rate-limit.login.per-account:10}")
+    private int loginPerAccount;
+
+    @Value("${rate-limit.login.per-ip:50}")
+    private int loginPerIp;
+
+    @Value("${rate-limit.otp-verify.per-account:5}")
+    private int otpVerifyPerAccount;
+
+    @Value("${rate-limit.otp-verify.per-ip:30}")
+    private int otpVerifyPerIp;
+
+    @Value("${rate-limit.otp-send.per-account:3}")
+    private int otpSendPerAccount;
+
+    @Value("${rate-limit.otp-send.per-ip:20}")
+    private int otpSendPerIp;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Object[] locks = new Object[STRIPES];
+    private final Map<Endpoint, int[]> limits = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, Counter[]> rejections = new EnumMap<>(Endpoint.class);
+    private Cache<String, Bucket> buckets;
+    private long windowNanos;
+
+    @PostConstruct
+    void init() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        windowNanos = TimeUnit.SECONDS.toNanos(windowSeconds);
+        buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofSeconds(windowSeconds))
+                .build();
+
+        limits.put(Endpoint.LOGIN, new int[] { loginPerAccount, loginPerIp });
+        limits.put(Endpoint.OTP_VERIFY, new int[] { otpVerifyPerAccount, otpVerifyPerIp });
+        limits.put(Endpoint.OTP_SEND, new int[] { otpSendPerAccount, otpSendPerIp });
+
+        for (Endpoint endpoint : Endpoint.values()) {
+            String name = endpoint.name().toLowerCase(Locale.ROOT);
+            int[] limit = limits.get(endpoint);
+            Gauge.builder("rate.limit.capacity", limit, l -> l[0])
+                    .tags("endpoint", name, "scope", "account").register(meterRegistry);
+            Gauge.builder("rate.limit.capacity", limit, l -> l[1])
+                    .tags("endpoint", name, "scope", "ip").register(meterRegistry);
+            rejections.put(endpoint, new Counter[] {
+                    Counter.builder("rate.limit.rejected").tags("endpoint", name, "scope", "account").register(meterRegistry),
+                    Counter.builder("rate.limit.rejected").tags("endpoint", name, "scope", "ip").register(meterRegistry)
+            });
+        }
+        Gauge.builder("rate.limit.tracked.keys", buckets, Cache::estimatedSize).register(meterRegistry);
+    }
+
+    /**
+     * Consume one token from both the IP and the account bucket of an endpoint
+     * @param endpoint The throttled endpoint
+     * @param account Username or email supplied by the caller; may be null
+     * @param clientIp Remote address of the caller
+     * @throws RateLimitExceededException if either bucket is empty
+     */
+    public void check(Endpoint endpoint, String account, String clientIp) {
+        int[] limit = limits.get(endpoint);
+        consume(endpoint, 1, "ip:" + clientIp, limit[1]);
+        if (account != null && !account.isBlank()) {
+            consume(endpoint, 0, "acct:" + account.trim().toLowerCase(Locale.ROOT), limit[0]);
+        }
+    }
+
+    private void consume(Endpoint endpoint, int scope, String subject, int capacity) {
+        String key = endpoint.ordinal() + ":" + subject;
+        Bucket bucket = buckets.get(key, k -> new Bucket(capacity));
+        long waitNanos;
+        synchronized (locks[spread(key.hashCode()) & (STRIPES - 1)]) {
+            waitNanos = bucket.tryConsume(capacity, windowNanos);
+        }
+        if (waitNanos > 0) {
+            rejections.get(endpoint)[scope].increment();
+            log.warn("Rate limit exceeded for {} on {}", subject, endpoint);
+            long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1);
+            throw new RateLimitExceededException("Too many attempts. Please try again later.", retryAfter);
+        }
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    // Mutated only while holding the lock stripe for its key
+    private static final class Bucket {
+        private double tokens;
+        private long lastRefillNanos;
+
+        Bucket(int capacity) {
+            this.tokens = capacity;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        // Returns 0 if a token was taken, otherwise the nanoseconds until one is available
+        long tryConsume(int capacity, long windowNanos) {
+            long now = System.nanoTime();
+            double nanosPerToken = (double) windowNanos / capacity;
+            tokens = Math.min(capacity, tokens + (now - lastRefillNanos) / nanosPerToken);
+            lastRefillNanos = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) * nanosPerToken);
+        }
+    }
+}
@@ -11,6 +11,7 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -19,13 +20,31 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+
+import jakarta.servlet.DispatcherType;
+
+import com.vaahan.util.IdempotencyStore;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
 public class SecurityConfig {
 
+    // Paths open to anonymous callers; JwtAuthenticationFilter skips these entirely
+    public static final String[] PUBLIC_PATHS = {
+        "/api/auth/**",
+        "/api/otp/**",
+        "/swagger-ui/**",
+        "/v3/api-docs/**",
+        "/actuator/**",
+        "/error"
+    };
+
     @Autowired
     private JwtAuthenticationFilter jwtFilter;
 
@@ -41,20 +60,27 @@ public class SecurityConfig {
     @Value("${cors.allowed-headers}")
     private String allowedHeaders;
 
+    @Value("${security.password.bcrypt-strength:10}")
+    private int bcryptStrength;
+
+    @Value("${security.password.hashing-threads:0}")
+    private int hashingThreads;
+
+    @Value("${security.password.queue-capacity:64}")
+    private int hashingQueueCapacity;
+
+    @Value("${security.password.retry-after-seconds:2}")
+    private long retryAfterSeconds;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(auth -> auth
-                .requestMatchers(
-                    "/api/auth/**",
-                    "/api/otp/**",
-                    "/swagger-ui/**",
-                    "/v3/api-docs/**",
-                    "/actuator/**",
-                    "/error"
-                ).permitAll()
+                // Async dispatches only finish responses already authorized, such as event streams
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                .requestMatchers(PUBLIC_PATHS).permitAll()
                 .requestMatchers("/api/user/**", "/api/vcoins/**").hasAnyAuthority("ROLE_USER", "ROLE_ADMIN")
                 .requestMatchers("/api/reviewer/**").hasAuthority("ROLE_REVIEWER")
                 .requestMatchers("/api/admin/**").hasAuthority("ROLE_ADMIN")
@@ -91,6 +117,7 @@ public class SecurityConfig {
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L); // 1 hour
         configuration.addExposedHeader("Authorization");
+        configuration.addExposedHeader(IdempotencyStore.REPLAYED_HEADER);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
@@ -104,7 +131,17 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        String idForEncode = "bcrypt";
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(idForEncode, new BCryptPasswordEncoder(bcryptStrength));
+
+        // Hashes stored before the {bcrypt} prefix was introduced still verify, and are
+        // re-hashed at the configured strength on the next successful login
+        DelegatingPasswordEncoder delegatingEncoder = new DelegatingPasswordEncoder(idForEncode, encoders);
+        delegatingEncoder.setDefaultPasswordEncoderForMatches(encoders.get(idForEncode));
+
+        return new BoundedPasswordEncoder(delegatingEncoder, hashingThreads, hashingQueueCapacity,
+                retryAfterSeconds, meterRegistry);
     }
 }
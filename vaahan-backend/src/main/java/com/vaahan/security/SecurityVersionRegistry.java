@@ -0,0 +1,48 @@
+package com.vaahan.security;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.vaahan.repository.UserRepository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory table of the minimum token security version accepted per user.
+ * Only users whose role, status or password changed have an entry, so the table stays small.
+ */
+@Component
+@Slf4j
+public class SecurityVersionRegistry {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final Map<Long, Integer> minimumVersions = new ConcurrentHashMap<>();
+
+    // Loaded while the context starts, before the web server takes requests; until then every token would pass
+    @PostConstruct
+    void load() {
+        for (Object[] row : userRepository.findRevisedSecurityVersions()) {
+            record((Long) row[0], (Integer) row[1]);
+        }
+        log.info("Loaded security versions for {} users", minimumVersions.size());
+    }
+
+    /**
+     * Record a new security version for a user, revoking every token issued with an older one
+     * @param userId The user ID
+     * @param version The user's current security version
+     */
+    public void record(Long userId, int version) {
+        minimumVersions.merge(userId, version, Math::max);
+    }
+
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        return tokenVersion >= minimumVersions.getOrDefault(userId, 0);
+    }
+}
@@ -0,0 +1,141 @@
+package com.vaahan.security;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory list of revoked token ids (jti), partitioned by token expiry time.
+ * Each partition is a Bloom filter backed by an exact set; a token only ever lands in the
+ * partition covering its own expiry, so a lookup touches one partition and whole partitions
+ * are recycled once every token in them has expired.
+ */
+@Component
+@Slf4j
+public class TokenRevocationList {
+
+    private static final int HASH_FUNCTIONS = 3;
+
+    @Value("${jwt.revocation.partition-minutes:60}")
+    private long partitionMinutes;
+
+    @Value("${jwt.revocation.bloom-bits-per-partition:65536}")
+    private int bloomBits;
+
+    @Value("${jwt.refreshExpirationMs:604800000}")
+    private long maxTokenLifetimeMs;
+
+    private long partitionMs;
+    private int bloomMask;
+    private Partition[] partitions;
+
+    @PostConstruct
+    void init() {
+        partitionMs = TimeUnit.MINUTES.toMillis(partitionMinutes);
+        // Round up to a power of two so a probe is a mask, not a modulo
+        int bits = Integer.highestOneBit(Math.max(bloomBits, 64) - 1) << 1;
+        bloomMask = bits - 1;
+        int count = (int) (maxTokenLifetimeMs / partitionMs) + 2;
+        partitions = new Partition[count];
+        for (int i = 0; i < count; i++) {
+            partitions[i] = new Partition(bits >>> 6);
+        }
+        log.info("Token revocation list using {} partitions of {} bits", count, bits);
+    }
+
+    /**
+     * Revoke a token until it expires
+     * @param tokenId The token's jti claim
+     * @param expiresAtMs The token's exp claim in epoch milliseconds
+     * @return false if the token was already revoked
+     */
+    public boolean revoke(String tokenId, long expiresAtMs) {
+        if (tokenId == null) {
+            return false;
+        }
+        if (expiresAtMs <= System.currentTimeMillis()) {
+            return true; // Already unusable, nothing to track
+        }
+        long epoch = expiresAtMs / partitionMs;
+        Partition partition = partitions[(int) (epoch % partitions.length)];
+        synchronized (partition) {
+            if (partition.epoch != epoch) {
+                partition.reset(epoch);
+            }
+            if (!partition.exact.add(tokenId)) {
+                return false;
+            }
+            int h1 = tokenId.hashCode();
+            int h2 = secondaryHash(tokenId);
+            for (int i = 0; i < HASH_FUNCTIONS; i++) {
+                int bit = (h1 + i * h2) & bloomMask;
+                int word = bit >>> 6;
+                partition.bits.set(word, partition.bits.get(word) | (1L << bit));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Constant-time, allocation-free check used on every authenticated request
+     * @param tokenId The token's jti claim; tokens without one are never revoked
+     * @param expiresAtMs The token's exp claim in epoch milliseconds
+     */
+    public boolean isRevoked(String tokenId, long expiresAtMs) {
+        if (tokenId == null) {
+            return false;
+        }
+        long epoch = expiresAtMs / partitionMs;
+        Partition partition = partitions[(int) (epoch % partitions.length)];
+        if (partition.epoch != epoch) {
+            return false;
+        }
+        int h1 = tokenId.hashCode();
+        int h2 = secondaryHash(tokenId);
+        for (int i = 0; i < HASH_FUNCTIONS; i++) {
+            int bit = (h1 + i * h2) & bloomMask;
+            if ((partition.bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        // Possible Bloom false positive; confirm against the exact set
+        return partition.exact.contains(tokenId);
+    }
+
+    private static int secondaryHash(String value) {
+        int h = 0x9747b28c;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x5bd1e995;
+            h ^= h >>> 15;
+        }
+        return h | 1; // odd, so successive probes never collapse onto one bit
+    }
+
+    private static final class Partition {
+        private volatile long epoch = -1;
+        private final AtomicLongArray bits;
+        private final Set<String> exact = ConcurrentHashMap.newKeySet();
+
+        Partition(int words) {
+            this.bits = new AtomicLongArray(words);
+        }
+
+        // Caller holds the partition lock; every token in the previous epoch has expired
+        void reset(long newEpoch) {
+            epoch = -1;
+            for (int i = 0; i < bits.length(); i++) {
+                bits.set(i, 0L);
+            }
+            exact.clear();
+            epoch = newEpoch;
+        }
+    }
+}
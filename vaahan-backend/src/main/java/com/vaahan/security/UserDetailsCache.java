@@ -0,0 +1,69 @@
+package com.vaahan.security;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Size- and TTL-bounded cache of loaded principals, indexed by both username and email.
+ * Hit, miss and eviction counts are published as the "userDetails" cache metrics.
+ */
+@Component
+@Slf4j
+public class UserDetailsCache {
+
+    @Value("${security.user-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${security.user-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, UserPrincipal> cache;
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "userDetails");
+    }
+
+    public UserPrincipal get(String usernameOrEmail) {
+        return cache.getIfPresent(usernameOrEmail);
+    }
+
+    public void put(UserPrincipal principal, String email) {
+        cache.put(principal.getUsername(), principal);
+        if (email != null) {
+            cache.put(email, principal);
+        }
+    }
+
+    /**
+     * Drop every cached entry for the given usernames and emails
+     * @param keys Usernames and emails; null values are ignored
+     */
+    public void invalidate(String... keys) {
+        for (String key : keys) {
+            if (key != null) {
+                cache.invalidate(key);
+            }
+        }
+        log.debug("Invalidated cached user details");
+    }
+}
@@ -0,0 +1,26 @@
+package com.vaahan.service;
+
+import com.vaahan.dto.CompactionReportDTO;
+
+public interface EvidenceCompactionService {
+
+    /**
+     * Move evidence of approved and rejected reports older than the threshold into pack files,
+     * deleting each loose file once its pack is verified and recorded. Runs interrupted after a
+     * pack was sealed are finished first.
+     * @return What the run did
+     * @throws IllegalStateException if a run is already in progress
+     */
+    CompactionReportDTO compact();
+
+    /**
+     * Start a compaction on the compactor's background thread
+     * @return False if a run is already in progress
+     */
+    boolean start();
+
+    /**
+     * @return The report of the last finished run, or null if none has finished since startup
+     */
+    CompactionReportDTO getLastReport();
+}
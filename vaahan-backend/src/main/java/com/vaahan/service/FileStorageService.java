@@ -1,7 +1,16 @@
 package com.vaahan.service;
 
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Instant;
+
 import org.springframework.web.multipart.MultipartFile;
 
+import com.vaahan.dto.StorageUsageDTO;
+import com.vaahan.dto.StoredFile;
+import com.vaahan.entities.EvidenceBlob;
+import com.vaahan.util.ImageVariant;
+
 public interface FileStorageService {
     
     /**
@@ -10,9 +19,93 @@ public interface FileStorageService {
      * @return The stored file path
      */
     String storeFile(MultipartFile file);
+
+    /**
+     * Store an uploaded image, validating its type from magic bytes and hashing it in the same read,
+     * and record its metadata in the evidence index
+     * @param file The uploaded image
+     * @param uploaderId The uploading user's ID, used for storage accounting; may be null
+     * @return The stored file name with its SHA-256 digest, size, detected content type and dimensions
+     */
+    StoredFile store(MultipartFile file, Long uploaderId);
+
+    /**
+     * Look up a stored file's indexed metadata without touching the filesystem
+     * @param fileName The stored file name
+     * @return The metadata, or null for files that are not indexed (legacy names, unknown files)
+     */
+    EvidenceBlob getMetadata(String fileName);
+
+    /**
+     * Get a stored image's perceptual hash, computing and recording it if it predates hashing
+     * @param fileName The stored file name
+     * @return The 64-bit dHash, or null if the file is missing or cannot be decoded
+     */
+    Long getPerceptualHash(String fileName);
+
+    /**
+     * Get a stored file's bytes from the in-memory hot image cache
+     * @param fileName The stored file name
+     * @return A read-only buffer positioned at the start of the file, or null if not cached
+     */
+    ByteBuffer getCachedContent(String fileName);
+
+    /**
+     * Get a packed image's bytes from its memory-mapped pack file
+     * @param fileName The stored file name
+     * @param variant The variant, or null for the original
+     * @return A read-only buffer over the bytes, or null if the image (or that variant) is not packed
+     */
+    ByteBuffer getPackedContent(String fileName, ImageVariant variant);
+
+    /**
+     * Delete the loose copies of an image once its pack has been recorded on the blob;
+     * only the original and variants the pack holds are removed
+     * @param fileName The stored file name
+     * @return Whether the loose original was removed
+     */
+    boolean removeLooseCopies(String fileName);
+
+    /**
+     * Disk usage of stored evidence, from the index rather than a directory walk
+     * @param userId Also report the bytes first uploaded by this user; may be null
+     */
+    StorageUsageDTO getStorageUsage(Long userId);
     
     /**
-     * Delete a file by its path
+     * Move a file from the old flat upload directory into the content-addressed layout.
+     * The flat file is left in place; reference counts are not changed.
+     * @param legacyName The file name in the flat upload directory
+     * @return The content-addressed file
+     */
+    StoredFile migrateLegacyFile(String legacyName);
+
+    /**
+     * Resolve a stored file name to its location on disk
+     * @param fileName The stored file name
+     * @return The file path, or null if the name is not a valid stored file name
+     */
+    Path resolvePath(String fileName);
+
+    /**
+     * Resolve where a derivative of a stored file is kept; it sits next to the original
+     * @param fileName The stored file name
+     * @param variant The variant
+     * @return The variant path, or null if the name is not a valid stored file name
+     */
+    Path resolveVariantPath(String fileName, ImageVariant variant);
+
+    /**
+     * Remove a stored image that no report references, along with its variants and index row
+     * @param fileName The stored file name
+     * @param untouchedSince Only remove the file if it has not been stored or deduplicated since then
+     * @param quarantine Move the files into this directory instead of deleting them; may be null
+     * @return Whether the file was removed
+     */
+    boolean removeOrphan(String fileName, Instant untouchedSince, Path quarantine);
+
+    /**
+     * Release one reference to a file, deleting it once nothing references it
      * @param filePath The path of the file to delete
      */
     void deleteFile(String filePath);
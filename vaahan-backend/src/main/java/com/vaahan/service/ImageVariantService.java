@@ -0,0 +1,23 @@
+package com.vaahan.service;
+
+import java.nio.file.Path;
+
+import com.vaahan.util.ImageVariant;
+
+public interface ImageVariantService {
+
+    /**
+     * Queue generation of every variant of a stored image. Never blocks; when the pipeline is
+     * saturated the work is dropped and the variants are generated on first request instead.
+     * @param fileName The stored file name
+     */
+    void generateAsync(String fileName);
+
+    /**
+     * Get a variant of a stored image, generating it now if it is missing
+     * @param fileName The stored file name
+     * @param variant The variant
+     * @return The variant's path, or null if the original is missing or cannot be decoded
+     */
+    Path getVariant(String fileName, ImageVariant variant);
+}
@@ -0,0 +1,20 @@
+package com.vaahan.service;
+
+import java.util.List;
+
+public interface NearDuplicateService {
+
+    /**
+     * Find reports whose evidence image is perceptually close to the given hash
+     * @param imageHash The perceptual hash of the new evidence
+     * @return IDs of likely duplicate reports, oldest first
+     */
+    List<Long> findNearDuplicates(long imageHash);
+
+    /**
+     * Index a saved report's evidence so later submissions can be matched against it
+     * @param reportId The report ID
+     * @param imageHash The perceptual hash of its evidence
+     */
+    void register(long reportId, long imageHash);
+}
@@ -0,0 +1,27 @@
+package com.vaahan.service;
+
+import com.vaahan.dto.OrphanReportDTO;
+
+public interface OrphanCollectorService {
+
+    /**
+     * Reconcile the upload directory with the images reports point at, removing or quarantining
+     * stored images no report references once they are older than the grace period
+     * @param dryRun Only report what would be removed
+     * @return What the run found and did
+     * @throws IllegalStateException if a run is already in progress
+     */
+    OrphanReportDTO collect(boolean dryRun);
+
+    /**
+     * Start a collection on the collector's low-priority thread
+     * @param dryRun Only report what would be removed
+     * @return False if a run is already in progress
+     */
+    boolean start(boolean dryRun);
+
+    /**
+     * @return The report of the last finished run, or null if none has finished since startup
+     */
+    OrphanReportDTO getLastReport();
+}
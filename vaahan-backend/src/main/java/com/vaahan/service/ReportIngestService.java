@@ -0,0 +1,33 @@
+package com.vaahan.service;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import com.vaahan.dto.IngestStatusDTO;
+
+public interface ReportIngestService {
+
+    /**
+     * @return Whether reports are accepted into the ingestion log instead of being saved during the request
+     */
+    boolean isEnabled();
+
+    /**
+     * Validate a report, park its image and append it to the ingestion log. Returns once the
+     * entry is durable; the image is stored and the report saved later, in batches.
+     * @param userId The submitting user's ID
+     * @param location The report location
+     * @param description The report description
+     * @param vehicleNumber The vehicle number; may be null
+     * @param image The evidence image
+     * @return A pending status carrying the tracking ID
+     */
+    IngestStatusDTO accept(Long userId, String location, String description, String vehicleNumber, MultipartFile image);
+
+    /**
+     * Look up what became of an accepted report
+     * @param trackingId The tracking ID returned on acceptance
+     * @param userId The asking user's ID; other users' reports are not found
+     * @return The status, or null if the tracking ID is unknown
+     */
+    IngestStatusDTO getStatus(String trackingId, Long userId);
+}
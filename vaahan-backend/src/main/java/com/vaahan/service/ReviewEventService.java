@@ -0,0 +1,14 @@
+package com.vaahan.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface ReviewEventService {
+
+    /**
+     * Open a stream of review-queue events
+     * @param lastEventId Id of the last event the client received, from the Last-Event-ID header; may be null.
+     *                    Missed events are replayed first, or a reset event is sent if they are no longer retained.
+     * @throws IllegalStateException if the subscriber limit is reached
+     */
+    SseEmitter subscribe(String lastEventId);
+}
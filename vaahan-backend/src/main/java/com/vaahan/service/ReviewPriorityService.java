@@ -0,0 +1,30 @@
+package com.vaahan.service;
+
+import java.util.List;
+
+import com.vaahan.dto.ReportPageDTO;
+import com.vaahan.dto.ViolationReportDTO;
+import com.vaahan.entities.SeverityLevel;
+
+public interface ReviewPriorityService {
+
+    /**
+     * @return Whether the review queue is served from the in-memory priority index
+     */
+    boolean isEnabled();
+
+    /**
+     * A page of pending reports, highest priority first, read from memory
+     * @param cursor Token from the previous page's nextCursor; null for the first page
+     * @param severity Only reports of this severity; may be null
+     * @param category Only reports in this violation category; may be null
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    ReportPageDTO getPendingReports(String cursor, SeverityLevel severity, String category, int limit);
+
+    /**
+     * Pending reports the reviewer could claim, highest priority first: unclaimed, past their
+     * lease, or already held by the reviewer
+     */
+    List<ViolationReportDTO> findClaimCandidates(Long reviewerId, int limit);
+}
@@ -5,6 +5,8 @@ import java.util.Optional;
 
 import com.vaahan.dto.User.UserDTO;
 import com.vaahan.entities.User;
+import com.vaahan.entities.UserRole;
+import com.vaahan.entities.UserStatus;
 
 public interface UserService {
     UserDTO getUserById(Long id);
@@ -14,6 +16,10 @@ public interface UserService {
     boolean existsByEmail(String email);
     boolean existsByUsername(String username);
     Optional<User> findByUsername(String username);
+    Optional<User> findById(Long id);
+    User getReferenceById(Long id);
+    UserDTO updateUserStatus(Long id, UserStatus status);
+    UserDTO updateUserRole(Long id, UserRole role);
     void initiatePasswordReset(String email, String appUrl);
     boolean resetPassword(String token, String newPassword);
 }
@@ -5,6 +5,7 @@ import java.util.List;
 import com.vaahan.entities.User;
 import com.vaahan.entities.VCoinConfig;
 import com.vaahan.entities.VCoinTransaction;
+import com.vaahan.entities.ViolationReport;
 
 public interface VCoinService {
     
@@ -16,6 +17,15 @@ public interface VCoinService {
      * @return The transaction record
      */
     VCoinTransaction awardVCoinsForViolationReport(User user, String severityLevel, Long violationReportId);
+
+    /**
+     * Award VCoins for many approved reports at once. Each user's balance is updated once for all
+     * of their reports and the transaction records are inserted together. Reports whose severity
+     * has no active reward are skipped.
+     * @param reports Approved reports with their violation and user loaded
+     * @return The transaction records, one per rewarded report
+     */
+    List<VCoinTransaction> awardVCoinsForApprovedReports(List<ViolationReport> reports);
     
     /**
      * Get VCoin configuration for a severity level
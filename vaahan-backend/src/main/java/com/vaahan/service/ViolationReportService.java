@@ -4,15 +4,64 @@ import java.util.List;
 
 import org.springframework.web.multipart.MultipartFile;
 
+import com.vaahan.dto.BatchReportResultDTO;
+import com.vaahan.dto.ReportClaimDTO;
+import com.vaahan.dto.ReportPageDTO;
+import com.vaahan.dto.ReviewDecisionDTO;
+import com.vaahan.dto.ReviewDecisionResultDTO;
 import com.vaahan.dto.ViolationReportDTO;
+import com.vaahan.entities.SeverityLevel;
 import com.vaahan.entities.ViolationReport;
+import com.vaahan.exception.LeaseNotHeldException;
 
 public interface ViolationReportService {
     ViolationReport submitReport(ViolationReport report);
     ViolationReport submitReport(ViolationReport report, MultipartFile image);
-    List<ViolationReportDTO> getReportsByUser(Long userId);
-    List<ViolationReportDTO> getAllPendingReports();
-    ViolationReport updateReportStatus(Long reportId, String status);
+
+    /**
+     * Submit several reports at once. Images are stored one by one, then every report whose image
+     * was accepted is inserted in a single transaction and JDBC batch.
+     * @param reports The reports, with user and form fields set
+     * @param images One image per report, in the same order
+     * @return One result per report, in the same order
+     */
+    List<BatchReportResultDTO> submitReports(List<ViolationReport> reports, List<MultipartFile> images);
+
+    /**
+     * A page of a user's reports, newest first
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @param severity Only reports of this severity; may be null
+     * @param category Only reports in this violation category; may be null
+     * @param limit Page size, capped at reports.page.max-size; the default size when null
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    ReportPageDTO getReportsByUser(Long userId, String cursor, SeverityLevel severity, String category, Integer limit);
+
+    /**
+     * A page of the review queue, oldest first; same parameters as {@link #getReportsByUser}
+     */
+    ReportPageDTO getPendingReports(String cursor, SeverityLevel severity, String category, Integer limit);
+
+    /**
+     * Lease up to limit pending reports to a reviewer, oldest first, including those the reviewer already holds.
+     * Concurrent claims never hand out the same report.
+     * @param limit Batch size, capped at reports.claim.max-size; the default size when null
+     */
+    ReportClaimDTO claimReports(Long reviewerId, Integer limit);
+
+    /**
+     * Decide a report the reviewer holds a lease on
+     * @throws LeaseNotHeldException if the report is not pending or its lease belongs to someone else or has lapsed
+     */
+    ViolationReportDTO updateReportStatus(Long reportId, String status, Long reviewerId);
+
+    /**
+     * Apply many decisions in one transaction. Reports are locked and loaded in one query each, and
+     * approvals are awarded together; an item that cannot be decided gets a failure result without
+     * affecting the others.
+     * @return One result per decision, in request order
+     */
+    List<ReviewDecisionResultDTO> decideReports(List<ReviewDecisionDTO> decisions, Long reviewerId);
     ViolationReportDTO getReportById(Long reportId);
 }
 
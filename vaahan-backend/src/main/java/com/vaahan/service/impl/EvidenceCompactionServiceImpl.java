@@ -0,0 +1,395 @@
+package com.vaahan.service.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.vaahan.dto.CompactionReportDTO;
+import com.vaahan.entities.EvidenceBlob;
+import com.vaahan.entities.ReportStatus;
+import com.vaahan.repository.EvidenceBlobRepository;
+import com.vaahan.service.EvidenceCompactionService;
+import com.vaahan.service.FileStorageService;
+import com.vaahan.util.ImageVariant;
+import com.vaahan.util.PackFile;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cold tier for evidence nobody is likely to open again: once every report using an image has
+ * been approved or rejected and the image is older than file.pack.min-age-days, the image and its
+ * variants are copied into a pack file. Candidates are read in sha256 order and split into
+ * pack-sized groups written in parallel. A sealed pack is verified against its checksums (and
+ * each original against the SHA-256 in its name) before the blobs are pointed at it and their
+ * loose files deleted; a pack stays marked pending until that is done, so a later run can finish it.
+ */
+@Service
+@Slf4j
+public class EvidenceCompactionServiceImpl implements EvidenceCompactionService, DisposableBean {
+
+    private static final int ORIGINAL = EvidencePackStore.kindOf(null);
+
+    @Value("${file.pack.enabled:false}")
+    private boolean scheduled;
+
+    @Value("${file.pack.initial-delay-minutes:120}")
+    private long initialDelayMinutes;
+
+    @Value("${file.pack.interval-hours:24}")
+    private long intervalHours;
+
+    @Value("${file.pack.min-age-days:30}")
+    private long minAgeDays;
+
+    @Value("${file.pack.max-bytes:268435456}")
+    private long maxPackBytes;
+
+    @Value("${file.pack.threads:2}")
+    private int threads;
+
+    @Value("${file.pack.chunk-size:500}")
+    private int chunkSize;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private EvidenceBlobRepository evidenceBlobRepository;
+
+    @Autowired
+    private EvidencePackStore evidencePackStore;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private ScheduledExecutorService executor;
+    private Counter packedCounter;
+    private volatile CompactionReportDTO lastReport;
+
+    @PostConstruct
+    void init() {
+        packedCounter = Counter.builder("storage.packs.images")
+                .description("Evidence images moved into pack files")
+                .register(meterRegistry);
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "evidence-compaction");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        if (scheduled) {
+            executor.scheduleWithFixedDelay(this::compactInBackground,
+                    initialDelayMinutes, TimeUnit.HOURS.toMinutes(intervalHours), TimeUnit.MINUTES);
+            log.info("Evidence compaction scheduled every {} hours for images older than {} days",
+                    intervalHours, minAgeDays);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public boolean start() {
+        // Taken here rather than in the task, so a second request is refused instead of queued behind the first
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    runHoldingGate();
+                } catch (Exception e) {
+                    log.error("Evidence compaction failed: {}", e.getMessage(), e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+            throw e;
+        }
+        return true;
+    }
+
+    @Override
+    public CompactionReportDTO getLastReport() {
+        return lastReport;
+    }
+
+    @Override
+    public CompactionReportDTO compact() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Evidence compaction is already running");
+        }
+        return runHoldingGate();
+    }
+
+    private CompactionReportDTO runHoldingGate() {
+        try {
+            CompactionReportDTO report = new Run().execute();
+            lastReport = report;
+            return report;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Evidence compaction interrupted", e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void compactInBackground() {
+        try {
+            compact();
+        } catch (Exception e) {
+            log.error("Evidence compaction failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private final class Run {
+        private final LocalDateTime cutoff = LocalDateTime.now().minusDays(minAgeDays);
+        private final AtomicLong packed = new AtomicLong();
+        private final AtomicLong packedBytes = new AtomicLong();
+        private final AtomicLong looseFilesRemoved = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private final AtomicInteger packsWritten = new AtomicInteger();
+        private final AtomicInteger packsFailed = new AtomicInteger();
+
+        CompactionReportDTO execute() throws InterruptedException {
+            long started = System.nanoTime();
+            CompactionReportDTO report = new CompactionReportDTO();
+            report.setStartedAt(LocalDateTime.now());
+
+            for (PackFile pack : evidencePackStore.pending()) {
+                if (verify(pack)) {
+                    log.info("Resuming evidence pack {} sealed by an earlier run", pack.getId());
+                    finish(pack);
+                    report.setPacksResumed(report.getPacksResumed() + 1);
+                } else {
+                    // Blobs may already point at it, so it is left for inspection rather than discarded
+                    packsFailed.incrementAndGet();
+                }
+            }
+
+            // Caller-runs keeps at most one queued group per worker, bounding the groups held in memory
+            int poolSize = Math.max(1, threads);
+            AtomicInteger threadCount = new AtomicInteger();
+            ThreadPoolExecutor workers = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(poolSize),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "evidence-compaction-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        thread.setPriority(Thread.MIN_PRIORITY);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+            try {
+                String sampleUrl = fileStorageService.getFileUrl("x");
+                String urlPrefix = sampleUrl.substring(0, sampleUrl.length() - 1);
+                String after = "";
+                List<EvidenceBlob> group = new ArrayList<>();
+                long groupBytes = 0;
+                while (true) {
+                    List<EvidenceBlob> candidates = evidenceBlobRepository.findPackCandidates(urlPrefix,
+                            ReportStatus.PENDING, cutoff, after, PageRequest.of(0, chunkSize));
+                    for (EvidenceBlob blob : candidates) {
+                        report.setCandidates(report.getCandidates() + 1);
+                        group.add(blob);
+                        groupBytes += blob.getSizeBytes() != null ? blob.getSizeBytes() : 0;
+                        if (groupBytes >= maxPackBytes) {
+                            List<EvidenceBlob> full = group;
+                            workers.execute(() -> pack(full));
+                            group = new ArrayList<>();
+                            groupBytes = 0;
+                        }
+                        after = blob.getSha256();
+                    }
+                    if (candidates.size() < chunkSize) {
+                        break;
+                    }
+                }
+                if (!group.isEmpty()) {
+                    List<EvidenceBlob> last = group;
+                    workers.execute(() -> pack(last));
+                }
+            } finally {
+                workers.shutdown();
+                workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            }
+
+            report.setPacked(packed.get());
+            report.setPackedBytes(packedBytes.get());
+            report.setLooseFilesRemoved(looseFilesRemoved.get());
+            report.setSkipped(skipped.get());
+            report.setPacksWritten(packsWritten.get());
+            report.setPacksFailed(packsFailed.get());
+            report.setDurationMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            log.info("Evidence compaction finished: {} of {} candidates packed ({} bytes) into {} packs, "
+                            + "{} loose files removed, {} skipped, {} packs resumed, {} failed verification",
+                    report.getPacked(), report.getCandidates(), report.getPackedBytes(), report.getPacksWritten(),
+                    report.getLooseFilesRemoved(), report.getSkipped(), report.getPacksResumed(),
+                    report.getPacksFailed());
+            return report;
+        }
+
+        // Writes one group, sealing and starting another pack whenever the current one is full
+        private void pack(List<EvidenceBlob> group) {
+            PackFile.Writer writer = null;
+            try {
+                for (EvidenceBlob blob : group) {
+                    byte[] original = read(fileStorageService.resolvePath(blob.getFileName()));
+                    if (original == null) {
+                        skipped.incrementAndGet(); // Deleted since it was selected
+                        continue;
+                    }
+                    byte[] key = sha256(ByteBuffer.wrap(original));
+                    if (!HexFormat.of().formatHex(key).equals(blob.getSha256())) {
+                        log.error("Stored file {} does not match its name; leaving it loose", blob.getFileName());
+                        skipped.incrementAndGet();
+                        continue;
+                    }
+                    byte[][] variants = new byte[ImageVariant.values().length][];
+                    long length = original.length;
+                    for (ImageVariant variant : ImageVariant.values()) {
+                        variants[variant.ordinal()] = read(fileStorageService.resolveVariantPath(blob.getFileName(), variant));
+                        length += variants[variant.ordinal()] != null ? variants[variant.ordinal()].length : 0;
+                    }
+
+                    if (writer != null && !writer.fits(length)) {
+                        seal(writer);
+                        writer = null;
+                    }
+                    if (writer == null) {
+                        writer = evidencePackStore.create(maxPackBytes);
+                    }
+                    writer.append(key, ORIGINAL, original);
+                    for (ImageVariant variant : ImageVariant.values()) {
+                        if (variants[variant.ordinal()] != null) {
+                            writer.append(key, EvidencePackStore.kindOf(variant), variants[variant.ordinal()]);
+                        }
+                    }
+                }
+                if (writer != null && writer.size() > 0) {
+                    seal(writer);
+                }
+            } catch (Exception e) {
+                log.error("Failed to pack evidence: {}", e.getMessage(), e);
+            } finally {
+                if (writer != null) {
+                    try {
+                        writer.close();
+                    } catch (IOException e) {
+                        log.warn("Failed to discard unsealed pack {}: {}", writer.getId(), e.getMessage());
+                    }
+                }
+            }
+        }
+
+        private void seal(PackFile.Writer writer) throws IOException {
+            PackFile pack = writer.seal();
+            if (!verify(pack)) {
+                // Nothing points at it yet, and the loose files are untouched
+                evidencePackStore.discard(pack);
+                packsFailed.incrementAndGet();
+                return;
+            }
+            evidencePackStore.register(pack);
+            packsWritten.incrementAndGet();
+            packedBytes.addAndGet(pack.dataBytes());
+            finish(pack);
+        }
+
+        // Every entry against its CRC-32C, and every original against the digest it is keyed by
+        private boolean verify(PackFile pack) {
+            PackFile.Entry corrupt = pack.verify();
+            for (int i = 0; corrupt == null && i < pack.size(); i++) {
+                PackFile.Entry entry = pack.entry(i);
+                if (entry.kind() == ORIGINAL && !Arrays.equals(sha256(pack.read(entry)), entry.key())) {
+                    corrupt = entry;
+                }
+            }
+            if (corrupt != null) {
+                log.error("Evidence pack {} failed verification at {} (kind {})", pack.getId(),
+                        HexFormat.of().formatHex(corrupt.key()), corrupt.kind());
+                return false;
+            }
+            return true;
+        }
+
+        // Point the blobs at the pack, then drop their loose copies; safe to repeat
+        private void finish(PackFile pack) {
+            List<String> sha256s = new ArrayList<>();
+            for (int i = 0; i < pack.size(); i++) {
+                PackFile.Entry entry = pack.entry(i);
+                if (entry.kind() == ORIGINAL) {
+                    sha256s.add(HexFormat.of().formatHex(entry.key()));
+                }
+            }
+            for (int from = 0; from < sha256s.size(); from += chunkSize) {
+                List<String> chunk = sha256s.subList(from, Math.min(sha256s.size(), from + chunkSize));
+                int marked = evidenceBlobRepository.markPacked(chunk, pack.getId());
+                packed.addAndGet(marked);
+                packedCounter.increment(marked);
+                for (EvidenceBlob blob : evidenceBlobRepository.findAllById(chunk)) {
+                    if (Integer.valueOf(pack.getId()).equals(blob.getPackId())
+                            && fileStorageService.removeLooseCopies(blob.getFileName())) {
+                        looseFilesRemoved.incrementAndGet();
+                    }
+                }
+            }
+            try {
+                pack.markComplete();
+            } catch (IOException e) {
+                log.warn("Could not clear pending marker of evidence pack {}: {}", pack.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private static byte[] read(Path file) throws IOException {
+        if (file == null) {
+            return null;
+        }
+        try {
+            return Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private static byte[] sha256(ByteBuffer content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(content);
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
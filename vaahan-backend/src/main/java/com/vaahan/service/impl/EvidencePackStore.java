@@ -0,0 +1,112 @@
+package com.vaahan.service.impl;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.vaahan.util.ImageVariant;
+import com.vaahan.util.PackFile;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The pack files of the cold evidence tier, mapped at startup and as compaction seals them.
+ * An image's pack is recorded on its evidence_blobs row, so a read is one map lookup and a
+ * binary search of that pack's index.
+ */
+@Component
+@Slf4j
+public class EvidencePackStore {
+
+    @Value("${file.pack.path:./uploads/.packs}")
+    private String packPath;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<Integer, PackFile> packs = new ConcurrentHashMap<>();
+    private final AtomicInteger lastId = new AtomicInteger();
+    private Path directory;
+
+    @PostConstruct
+    void init() throws IOException {
+        directory = Paths.get(packPath).toAbsolutePath().normalize();
+        int removed = PackFile.deleteUnsealed(directory);
+        if (removed > 0) {
+            log.info("Removed {} partial pack files left by an interrupted compaction", removed);
+        }
+        for (int id : PackFile.list(directory)) {
+            try {
+                packs.put(id, PackFile.open(directory, id));
+            } catch (IOException e) {
+                // Leave the files for inspection; images in it are served from loose copies if any remain
+                log.error("Could not open evidence pack {}: {}", id, e.getMessage());
+            }
+            lastId.accumulateAndGet(id, Math::max);
+        }
+        Gauge.builder("storage.packs", packs, Map::size)
+                .description("Evidence pack files mapped for reading")
+                .register(meterRegistry);
+        Gauge.builder("storage.packs.bytes", packs,
+                        p -> p.values().stream().mapToLong(PackFile::dataBytes).sum())
+                .description("Bytes of evidence held in pack files")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        if (!packs.isEmpty()) {
+            log.info("Mapped {} evidence packs from {}", packs.size(), directory);
+        }
+    }
+
+    /**
+     * The kind byte an image is stored under in a pack
+     * @param variant The variant, or null for the original
+     */
+    static int kindOf(ImageVariant variant) {
+        return variant == null ? 0 : variant.ordinal() + 1;
+    }
+
+    PackFile get(int id) {
+        return packs.get(id);
+    }
+
+    /**
+     * @return The packs whose post-seal work did not finish
+     */
+    List<PackFile> pending() {
+        List<PackFile> pending = new ArrayList<>();
+        for (PackFile pack : packs.values()) {
+            if (pack.isPending()) {
+                pending.add(pack);
+            }
+        }
+        return pending;
+    }
+
+    PackFile.Writer create(long maxBytes) throws IOException {
+        return PackFile.create(directory, lastId.incrementAndGet(), maxBytes);
+    }
+
+    void register(PackFile pack) {
+        packs.put(pack.getId(), pack);
+    }
+
+    /**
+     * Delete a pack nothing points at yet, such as one that failed verification
+     */
+    void discard(PackFile pack) throws IOException {
+        packs.remove(pack.getId());
+        pack.delete();
+    }
+}
@@ -1,34 +1,120 @@
 package com.vaahan.service.impl;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
-import java.util.UUID;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Pattern;
 
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vaahan.dto.StorageUsageDTO;
+import com.vaahan.dto.StoredFile;
+import com.vaahan.entities.EvidenceBlob;
 import com.vaahan.exception.FileStorageException;
+import com.vaahan.repository.EvidenceBlobRepository;
 import com.vaahan.service.FileStorageService;
+import com.vaahan.util.ImageType;
+import com.vaahan.util.ImageVariant;
+import com.vaahan.util.PackFile;
+import com.vaahan.util.PerceptualHash;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Content-addressed image store. Each image is named by the SHA-256 of its bytes and kept under
+ * two levels of hash-prefix shard directories (ab/cd/abcd...); identical uploads share one file
+ * whose reference count lives in evidence_blobs. Names from the old flat layout still resolve
+ * until the flat-layout migration has moved them. Evidence of decided reports may later be moved
+ * into pack files; such blobs carry their pack id and are read from the pack instead.
+ */
 @Service
 @Slf4j
 public class FileStorageServiceImpl implements FileStorageService {
 
+    private static final long MAX_FILE_SIZE = 10 * 1024 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int STRIPES = 64;
+    private static final Pattern CONTENT_ADDRESSED_NAME = Pattern.compile("[0-9a-f]{64}(\\.[a-z0-9]{1,5})?");
+    private static final Pattern LEGACY_NAME = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]*");
+
     @Value("${file.upload.path}")
     private String uploadPath;
 
     @Value("${server.port:8080}")
     private String serverPort;
 
+    @Value("${file.metadata-cache.max-size:100000}")
+    private long metadataCacheMaxSize;
+
+    @Value("${file.metadata-cache.ttl-seconds:3600}")
+    private long metadataCacheTtlSeconds;
+
+    @Autowired
+    private EvidenceBlobRepository evidenceBlobRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private HotImageCache hotImageCache;
+
+    @Autowired
+    private EvidencePackStore evidencePackStore;
+
+    // Serialises create/unlink of the same blob so a delete never races a duplicate upload
+    private final Object[] locks = new Object[STRIPES];
+    private Path root;
+    // Read-through metadata index; misses are cached too, so unknown names do not hit the database each time
+    private Cache<String, Optional<EvidenceBlob>> metadataCache;
+
+    @PostConstruct
+    void init() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        root = Paths.get(uploadPath).toAbsolutePath().normalize();
+        metadataCache = Caffeine.newBuilder()
+                .maximumSize(metadataCacheMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(metadataCacheTtlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, metadataCache, "evidenceMetadata");
+    }
+
     @Override
     public String storeFile(MultipartFile file) {
+        return store(file, null).getFileName();
+    }
+
+    @Override
+    public StoredFile store(MultipartFile file, Long uploaderId) {
+        Path staged = null;
         try {
             // Validate file
             if (file.isEmpty()) {
@@ -36,49 +122,240 @@ public class FileStorageServiceImpl implements FileStorageService {
             }
 
             // Check file size (10MB limit)
-            if (file.getSize() > 10 * 1024 * 1024) {
+            if (file.getSize() > MAX_FILE_SIZE) {
                 throw new FileStorageException("File size exceeds 10MB limit");
             }
 
-            // Validate file type (only images)
-            String contentType = file.getContentType();
-            if (contentType == null || !contentType.startsWith("image/")) {
-                throw new FileStorageException("Only image files are allowed");
+            Scan scan;
+            try (InputStream in = file.getInputStream()) {
+                scan = scan(in, true);
             }
 
-            // Create upload directory if it doesn't exist
-            Path uploadDir = Paths.get(uploadPath);
-            if (!Files.exists(uploadDir)) {
-                Files.createDirectories(uploadDir);
-            }
+            // The name follows the content, and the extension the detected type, not the client's name
+            String fileName = scan.sha256 + scan.imageType.getExtension();
+            Path targetLocation = resolvePath(fileName);
+            boolean deduplicated;
+            int[] dimensions = null;
+            // Decoding is the slow part of storing, so it stays outside the stripe lock when the blob looks new
+            boolean hashed = getMetadata(fileName) == null;
+            Long perceptualHash = hashed ? computePerceptualHash(file) : null;
 
-            // Generate unique filename
-            String originalFilename = StringUtils.cleanPath(file.getOriginalFilename());
-            String fileExtension = originalFilename.substring(originalFilename.lastIndexOf("."));
-            String fileName = UUID.randomUUID().toString() + fileExtension;
+            synchronized (lockFor(scan.sha256)) {
+                // The row, not the file, says whether the blob is stored: a file can outlive a failed acquire
+                EvidenceBlob blob = evidenceBlobRepository.findById(scan.sha256).orElse(null);
+                boolean packed = blob != null && blob.getPackId() != null;
+                deduplicated = blob != null && (packed || Files.exists(targetLocation));
+                boolean moved = false;
+                try {
+                    if (deduplicated && !packed) {
+                        // Marks the blob as freshly referenced, so the orphan collector leaves it alone
+                        Files.setLastModifiedTime(targetLocation, FileTime.from(Instant.now()));
+                    } else if (!deduplicated) {
+                        if (!hashed) {
+                            perceptualHash = computePerceptualHash(file);
+                        }
+                        Files.createDirectories(targetLocation.getParent());
+                        // transferTo(File) hands off to Part.write, which renames the container's spooled part
+                        // instead of copying it; staging next to the target keeps the final rename atomic
+                        staged = targetLocation.resolveSibling("." + fileName + ".part");
+                        file.transferTo(staged.toFile());
+                        Files.move(staged, targetLocation, StandardCopyOption.ATOMIC_MOVE);
+                        moved = true;
+                        dimensions = readDimensions(targetLocation);
+                    }
+                    evidenceBlobRepository.acquire(scan.sha256, fileName, 1, scan.size, scan.imageType.getMediaType(),
+                            dimensions != null ? dimensions[0] : null, dimensions != null ? dimensions[1] : null,
+                            perceptualHash, uploaderId);
+                } catch (RuntimeException ex) {
+                    // Without a row the file would pass for stored, and the next upload would skip its hash
+                    if (moved && blob == null) {
+                        deleteQuietly(targetLocation);
+                    }
+                    throw ex;
+                } finally {
+                    metadataCache.invalidate(fileName);
+                }
+            }
+            if (deduplicated) {
+                perceptualHash = getPerceptualHash(fileName);
+            }
 
-            // Store file
-            Path targetLocation = uploadDir.resolve(fileName);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+            // Freshly submitted evidence is about to be opened by reviewers
+            if (!deduplicated) {
+                hotImageCache.load(fileName, targetLocation, scan.size);
+            }
 
-            log.info("File stored successfully: {}", fileName);
-            return fileName;
+            if (deduplicated) {
+                log.info("Duplicate upload resolved to existing file: {}", fileName);
+            } else {
+                log.info("File stored successfully: {} ({} bytes)", fileName, scan.size);
+            }
+            return new StoredFile(fileName, scan.sha256, scan.size, scan.imageType.getMediaType(),
+                    dimensions != null ? dimensions[0] : null, dimensions != null ? dimensions[1] : null,
+                    perceptualHash, deduplicated);
 
         } catch (IOException ex) {
             log.error("Failed to store file: {}", ex.getMessage());
+            deleteQuietly(staged);
             throw new FileStorageException("Failed to store file", ex);
         }
     }
 
+    @Override
+    public StoredFile migrateLegacyFile(String legacyName) {
+        Path legacyFile = resolveLegacy(legacyName);
+        if (legacyFile == null || !Files.isRegularFile(legacyFile)) {
+            throw new FileStorageException("Not a legacy upload: " + legacyName);
+        }
+        try {
+            Scan scan;
+            try (InputStream in = Files.newInputStream(legacyFile)) {
+                scan = scan(in, false);
+            }
+
+            // Legacy uploads were only checked by content type, so keep their extension if the bytes are unknown
+            String extension = scan.imageType != null ? scan.imageType.getExtension() : legacyExtension(legacyName);
+            String fileName = scan.sha256 + extension;
+            Path targetLocation = resolvePath(fileName);
+            boolean deduplicated;
+
+            synchronized (lockFor(scan.sha256)) {
+                deduplicated = Files.exists(targetLocation);
+                if (!deduplicated) {
+                    Files.createDirectories(targetLocation.getParent());
+                    // Link rather than move, so the old name keeps serving until reports are repointed
+                    try {
+                        Files.createLink(targetLocation, legacyFile);
+                    } catch (FileAlreadyExistsException ex) {
+                        deduplicated = true;
+                    } catch (UnsupportedOperationException ex) {
+                        Files.copy(legacyFile, targetLocation);
+                    }
+                }
+            }
+
+            String contentType = scan.imageType != null ? scan.imageType.getMediaType() : null;
+            int[] dimensions = readDimensions(targetLocation);
+            return new StoredFile(fileName, scan.sha256, scan.size, contentType,
+                    dimensions != null ? dimensions[0] : null, dimensions != null ? dimensions[1] : null,
+                    computePerceptualHash(targetLocation), deduplicated);
+
+        } catch (IOException ex) {
+            log.error("Failed to migrate file {}: {}", legacyName, ex.getMessage());
+            throw new FileStorageException("Failed to migrate file " + legacyName, ex);
+        }
+    }
+
+    // Single read: type from the first buffer, digest and size from every buffer
+    private Scan scan(InputStream in, boolean requireImage) throws IOException {
+        MessageDigest digest = newSha256();
+        ImageType imageType = null;
+        long size = 0;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.readNBytes(buffer, 0, buffer.length)) > 0) {
+            if (size == 0) {
+                imageType = ImageType.detect(buffer, read);
+                if (imageType == null && requireImage) {
+                    throw new FileStorageException("Only image files are allowed");
+                }
+            }
+            size += read;
+            if (size > MAX_FILE_SIZE && requireImage) {
+                throw new FileStorageException("File size exceeds 10MB limit");
+            }
+            digest.update(buffer, 0, read);
+        }
+        return new Scan(HexFormat.of().formatHex(digest.digest()), size, imageType);
+    }
+
+    // Reads only the image header; null when ImageIO has no reader for the format or cannot parse the header
+    private static int[] readDimensions(Path image) {
+        try (ImageInputStream in = ImageIO.createImageInputStream(image.toFile())) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                return new int[] { reader.getWidth(0), reader.getHeight(0) };
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException ex) {
+            // Readers throw runtime exceptions on malformed headers too
+            log.warn("Could not read dimensions of {}: {}", image.getFileName(), ex.getMessage());
+            return null;
+        }
+    }
+
+    private static Long computePerceptualHash(MultipartFile file) {
+        try (InputStream in = file.getInputStream()) {
+            return PerceptualHash.compute(in);
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Could not hash image {}: {}", file.getOriginalFilename(), ex.getMessage());
+            return null;
+        }
+    }
+
+    private static Long computePerceptualHash(Path image) {
+        try {
+            return PerceptualHash.compute(image);
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Could not hash image {}: {}", image.getFileName(), ex.getMessage());
+            return null;
+        }
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ex) {
+            log.warn("Failed to remove staged upload {}: {}", path, ex.getMessage());
+        }
+    }
+
     @Override
     public void deleteFile(String filePath) {
         try {
-            if (filePath != null && !filePath.isEmpty()) {
-                Path file = Paths.get(uploadPath).resolve(filePath);
-                if (Files.exists(file)) {
-                    Files.delete(file);
+            if (filePath == null || filePath.isEmpty()) {
+                return;
+            }
+            if (!CONTENT_ADDRESSED_NAME.matcher(filePath).matches()) {
+                Path file = resolveLegacy(filePath);
+                if (file != null && Files.deleteIfExists(file)) {
                     log.info("File deleted successfully: {}", filePath);
                 }
+                return;
+            }
+
+            // Shared blobs are only unlinked once the last reference is released
+            String sha256 = filePath.substring(0, 64);
+            synchronized (lockFor(sha256)) {
+                evidenceBlobRepository.release(sha256);
+                if (evidenceBlobRepository.deleteIfUnreferenced(sha256) > 0) {
+                    metadataCache.invalidate(filePath);
+                    hotImageCache.invalidate(filePath);
+                    Files.deleteIfExists(resolvePath(filePath));
+                    for (ImageVariant variant : ImageVariant.values()) {
+                        Files.deleteIfExists(resolveVariantPath(filePath, variant));
+                    }
+                    log.info("File deleted successfully: {}", filePath);
+                } else {
+                    log.info("Released reference to shared file: {}", filePath);
+                }
             }
         } catch (IOException ex) {
             log.error("Failed to delete file: {}", ex.getMessage());
@@ -86,6 +363,176 @@ public class FileStorageServiceImpl implements FileStorageService {
         }
     }
 
+    @Override
+    public boolean removeOrphan(String fileName, Instant untouchedSince, Path quarantine) {
+        if (fileName == null || !CONTENT_ADDRESSED_NAME.matcher(fileName).matches()) {
+            return false;
+        }
+        String sha256 = fileName.substring(0, 64);
+        Path file = resolvePath(fileName);
+        try {
+            synchronized (lockFor(sha256)) {
+                // Stored again or deduplicated since the caller's scan; leave it for the next run
+                if (!Files.exists(file) || Files.getLastModifiedTime(file).toInstant().isAfter(untouchedSince)) {
+                    return false;
+                }
+                evidenceBlobRepository.deleteById(sha256);
+                metadataCache.invalidate(fileName);
+                hotImageCache.invalidate(fileName);
+                dispose(file, quarantine);
+                for (ImageVariant variant : ImageVariant.values()) {
+                    dispose(resolveVariantPath(fileName, variant), quarantine);
+                }
+            }
+            log.info("Removed orphaned file: {}", fileName);
+            return true;
+        } catch (IOException ex) {
+            log.error("Failed to remove orphaned file {}: {}", fileName, ex.getMessage());
+            throw new FileStorageException("Failed to remove orphaned file " + fileName, ex);
+        }
+    }
+
+    private static void dispose(Path file, Path quarantine) throws IOException {
+        if (quarantine == null) {
+            Files.deleteIfExists(file);
+        } else if (Files.exists(file)) {
+            Files.createDirectories(quarantine);
+            Files.move(file, quarantine.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public EvidenceBlob getMetadata(String fileName) {
+        if (fileName == null || !CONTENT_ADDRESSED_NAME.matcher(fileName).matches()) {
+            return null;
+        }
+        return metadataCache.get(fileName, name -> evidenceBlobRepository.findByFileName(name)).orElse(null);
+    }
+
+    @Override
+    public Long getPerceptualHash(String fileName) {
+        Path file = resolvePath(fileName);
+        if (file == null) {
+            return null;
+        }
+        EvidenceBlob metadata = getMetadata(fileName);
+        if (metadata != null && metadata.getPerceptualHash() != null) {
+            return metadata.getPerceptualHash();
+        }
+        // Stored before perceptual hashing, or a legacy name: hash now and record it on the blob
+        Long perceptualHash = computePerceptualHash(file);
+        if (perceptualHash != null && metadata != null) {
+            evidenceBlobRepository.setPerceptualHash(metadata.getSha256(), perceptualHash);
+            metadataCache.invalidate(fileName);
+        }
+        return perceptualHash;
+    }
+
+    @Override
+    public ByteBuffer getCachedContent(String fileName) {
+        return hotImageCache.get(fileName);
+    }
+
+    @Override
+    public ByteBuffer getPackedContent(String fileName, ImageVariant variant) {
+        EvidenceBlob metadata = getMetadata(fileName);
+        if (metadata == null || metadata.getPackId() == null) {
+            return null;
+        }
+        PackFile pack = evidencePackStore.get(metadata.getPackId());
+        if (pack == null) {
+            log.warn("Evidence pack {} holding {} is not mapped", metadata.getPackId(), fileName);
+            return null;
+        }
+        return pack.find(HexFormat.of().parseHex(metadata.getSha256()), EvidencePackStore.kindOf(variant));
+    }
+
+    @Override
+    public boolean removeLooseCopies(String fileName) {
+        if (fileName == null || !CONTENT_ADDRESSED_NAME.matcher(fileName).matches()) {
+            return false;
+        }
+        String sha256 = fileName.substring(0, 64);
+        byte[] key = HexFormat.of().parseHex(sha256);
+        try {
+            synchronized (lockFor(sha256)) {
+                // Readers holding the loose-file metadata must see the pack before the file goes
+                metadataCache.invalidate(fileName);
+                EvidenceBlob metadata = getMetadata(fileName);
+                PackFile pack = metadata != null && metadata.getPackId() != null
+                        ? evidencePackStore.get(metadata.getPackId()) : null;
+                if (pack == null || pack.find(key, EvidencePackStore.kindOf(null)) == null) {
+                    return false;
+                }
+                for (ImageVariant variant : ImageVariant.values()) {
+                    if (pack.find(key, EvidencePackStore.kindOf(variant)) != null) {
+                        Files.deleteIfExists(resolveVariantPath(fileName, variant));
+                    }
+                }
+                return Files.deleteIfExists(resolvePath(fileName));
+            }
+        } catch (IOException ex) {
+            log.error("Failed to remove loose copies of packed file {}: {}", fileName, ex.getMessage());
+            throw new FileStorageException("Failed to remove loose copies of " + fileName, ex);
+        }
+    }
+
+    private boolean isPacked(String fileName) {
+        EvidenceBlob metadata = getMetadata(fileName);
+        return metadata != null && metadata.getPackId() != null;
+    }
+
+    @Override
+    public StorageUsageDTO getStorageUsage(Long userId) {
+        StorageUsageDTO usage = new StorageUsageDTO();
+        usage.setBlobCount(evidenceBlobRepository.count());
+        usage.setTotalBytes(evidenceBlobRepository.sumSizeBytes());
+        if (userId != null) {
+            usage.setUserId(userId);
+            usage.setUserBytes(evidenceBlobRepository.sumSizeBytesByUploader(userId));
+        }
+        return usage;
+    }
+
+    @Override
+    public Path resolvePath(String fileName) {
+        if (fileName == null) {
+            return null;
+        }
+        if (CONTENT_ADDRESSED_NAME.matcher(fileName).matches()) {
+            return root.resolve(fileName.substring(0, 2)).resolve(fileName.substring(2, 4)).resolve(fileName);
+        }
+        return resolveLegacy(fileName);
+    }
+
+    @Override
+    public Path resolveVariantPath(String fileName, ImageVariant variant) {
+        Path original = resolvePath(fileName);
+        if (original == null) {
+            return null;
+        }
+        int dot = fileName.lastIndexOf('.');
+        String baseName = dot > 0 ? fileName.substring(0, dot) : fileName;
+        return original.resolveSibling(baseName + "." + variant.getSuffix() + ".jpg");
+    }
+
+    private Path resolveLegacy(String fileName) {
+        if (fileName == null || !LEGACY_NAME.matcher(fileName).matches() || fileName.contains("..")) {
+            return null;
+        }
+        return root.resolve(fileName);
+    }
+
+    private static String legacyExtension(String legacyName) {
+        int dot = legacyName.lastIndexOf('.');
+        String extension = dot > 0 ? legacyName.substring(dot).toLowerCase(Locale.ROOT) : "";
+        return extension.matches("\\.[a-z0-9]{1,5}") ? extension : "";
+    }
+
+    private Object lockFor(String sha256) {
+        return locks[Integer.parseInt(sha256.substring(0, 2), 16) & (STRIPES - 1)];
+    }
+
     @Override
     public String getFileUrl(String fileName) {
         if (fileName == null || fileName.isEmpty()) {
@@ -93,4 +540,16 @@ public class FileStorageServiceImpl implements FileStorageService {
         }
         return "http://localhost:" + serverPort + "/api/files/" + fileName;
     }
-} 
\ No newline at end of file
+
+    private static final class Scan {
+        private final String sha256;
+        private final long size;
+        private final ImageType imageType;
+
+        Scan(String sha256, long size, ImageType imageType) {
+            this.sha256 = sha256;
+            this.size = size;
+            this.imageType = imageType;
+        }
+    }
+}
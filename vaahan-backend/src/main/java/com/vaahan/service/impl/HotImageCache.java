@@ -0,0 +1,124 @@
+package com.vaahan.service.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Optional cache of recently stored image bytes held off-heap in direct buffers.
+ * Bounded by total bytes rather than entries; Caffeine's frequency-aware eviction keeps images
+ * several reviewers open over one-off views. Only newly stored blobs are cached, read back from
+ * the file just written while it is still in the page cache. Buffers being filled count against
+ * file.hot-cache.max-pending-bytes, and direct memory of evicted entries is returned when their
+ * buffers are collected, so size -XX:MaxDirectMemorySize above the sum of both budgets. An upload
+ * that finds direct memory exhausted is simply not cached.
+ */
+@Component
+@Slf4j
+public class HotImageCache {
+
+    @Value("${file.hot-cache.enabled:false}")
+    private boolean enabled;
+
+    @Value("${file.hot-cache.max-bytes:268435456}")
+    private long maxBytes;
+
+    @Value("${file.hot-cache.max-entry-bytes:10485760}")
+    private long maxEntryBytes;
+
+    @Value("${file.hot-cache.max-pending-bytes:41943040}")
+    private long maxPendingBytes;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, ByteBuffer> cache;
+    // Direct memory allocated for buffers not yet handed to the cache
+    private final AtomicLong pendingBytes = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String fileName, ByteBuffer data) -> data.capacity())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "hotImages");
+        Gauge.builder("hot.images.resident.bytes", cache,
+                        c -> c.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L))
+                .description("Bytes of image data held in the hot image cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("hot.images.hit.ratio", cache, c -> c.stats().hitRate())
+                .description("Share of original image downloads served from the hot image cache")
+                .register(meterRegistry);
+        log.info("Hot image cache enabled with {} bytes", maxBytes);
+    }
+
+    /**
+     * Cache a newly stored image, read back from its file
+     * @param size The image size in bytes
+     */
+    void load(String fileName, Path file, long size) {
+        if (cache == null || size <= 0 || size > maxEntryBytes) {
+            return;
+        }
+        if (pendingBytes.addAndGet(size) > maxPendingBytes) {
+            pendingBytes.addAndGet(-size);
+            return;
+        }
+        try {
+            ByteBuffer data = ByteBuffer.allocateDirect((int) size);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                while (data.hasRemaining() && channel.read(data) >= 0) {
+                    // Fill the buffer
+                }
+            }
+            if (!data.hasRemaining()) {
+                cache.put(fileName, data.flip().asReadOnlyBuffer());
+            }
+        } catch (OutOfMemoryError e) {
+            log.warn("Direct memory exhausted, not caching {}", fileName);
+        } catch (IOException e) {
+            log.warn("Could not cache {}: {}", fileName, e.getMessage());
+        } finally {
+            pendingBytes.addAndGet(-size);
+        }
+    }
+
+    /**
+     * @return A private view of the cached bytes, or null on a miss
+     */
+    ByteBuffer get(String fileName) {
+        if (cache == null) {
+            return null;
+        }
+        ByteBuffer data = cache.getIfPresent(fileName);
+        return data != null ? data.duplicate() : null;
+    }
+
+    void invalidate(String fileName) {
+        if (cache != null) {
+            cache.invalidate(fileName);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.vaahan.service.impl;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.vaahan.service.FileStorageService;
+import com.vaahan.service.ImageVariantService;
+import com.vaahan.util.ImageVariant;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Generates thumbnails and previews with ImageIO on a small bounded pool.
+ * The original is decoded once, subsampled while reading, and every variant is scaled from it.
+ * Work for the same image is never done twice concurrently, whether queued or requested lazily.
+ */
+@Service
+@Slf4j
+public class ImageVariantServiceImpl implements ImageVariantService, DisposableBean {
+
+    @Value("${image.variants.threads:0}")
+    private int threads;
+
+    @Value("${image.variants.queue-capacity:256}")
+    private int queueCapacity;
+
+    @Value("${image.variants.jpeg-quality:0.8}")
+    private float jpegQuality;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+    private Counter dropped;
+
+    @PostConstruct
+    void init() {
+        // Decoding is CPU- and memory-heavy; by default leave half the cores to request handling
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-variants-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("image.variants.queue", executor, e -> e.getQueue().size())
+                .description("Images waiting for variant generation")
+                .register(meterRegistry);
+        Gauge.builder("image.variants.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Images whose variants are being generated")
+                .register(meterRegistry);
+        dropped = Counter.builder("image.variants.dropped")
+                .description("Images skipped because the queue was full; their variants are generated on first request")
+                .register(meterRegistry);
+
+        log.info("Image variant pool started with {} threads and queue capacity {}", poolSize, queueCapacity);
+    }
+
+    @Override
+    public void generateAsync(String fileName) {
+        try {
+            executor.execute(() -> generateOnce(fileName));
+        } catch (RejectedExecutionException e) {
+            dropped.increment();
+            log.warn("Image variant queue full, deferring variants of {} to first request", fileName);
+        }
+    }
+
+    @Override
+    public Path getVariant(String fileName, ImageVariant variant) {
+        Path target = fileStorageService.resolveVariantPath(fileName, variant);
+        if (target == null) {
+            return null;
+        }
+        if (!Files.exists(target)) {
+            // Missing after a crash or a dropped task: regenerate on the requesting thread
+            generateOnce(fileName);
+        }
+        return Files.exists(target) ? target : null;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private void generateOnce(String fileName) {
+        CompletableFuture<Void> generation = new CompletableFuture<>();
+        CompletableFuture<Void> existing = inFlight.putIfAbsent(fileName, generation);
+        if (existing != null) {
+            existing.join();
+            return;
+        }
+        try {
+            generate(fileName);
+        } catch (Exception e) {
+            log.error("Failed to generate variants of {}: {}", fileName, e.getMessage());
+        } finally {
+            inFlight.remove(fileName, generation);
+            generation.complete(null);
+        }
+    }
+
+    private void generate(String fileName) throws IOException {
+        Path original = fileStorageService.resolvePath(fileName);
+        if (original == null || !Files.exists(original)) {
+            return;
+        }
+
+        ImageVariant[] variants = ImageVariant.values();
+        int largest = 0;
+        boolean missing = false;
+        for (ImageVariant variant : variants) {
+            largest = Math.max(largest, variant.getMaxDimension());
+            missing |= !Files.exists(fileStorageService.resolveVariantPath(fileName, variant));
+        }
+        if (!missing) {
+            return;
+        }
+
+        BufferedImage source = read(original, largest);
+        if (source == null) {
+            log.debug("No ImageIO reader for {}, serving the original instead of variants", fileName);
+            return;
+        }
+
+        // Largest first, so each smaller variant is scaled from the previous one rather than the original
+        for (int i = variants.length - 1; i >= 0; i--) {
+            ImageVariant variant = variants[i];
+            source = scale(source, variant.getMaxDimension());
+            Path target = fileStorageService.resolveVariantPath(fileName, variant);
+            if (!Files.exists(target)) {
+                write(source, target);
+            }
+        }
+        log.debug("Generated variants of {}", fileName);
+    }
+
+    // Subsample while decoding so a 12MP photo never materialises at full resolution
+    private BufferedImage read(Path original, int maxDimension) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                // Keep at least twice the target resolution so the final scale still has pixels to filter
+                int subsampling = Math.max(1, longest / (maxDimension * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage source, int maxDimension) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double ratio = Math.min(1.0, (double) maxDimension / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(height * ratio));
+
+        // Halve repeatedly before the last step; a single bilinear pass over a large ratio aliases badly
+        BufferedImage current = source;
+        do {
+            int stepWidth = Math.max(targetWidth, current.getWidth() / 2);
+            int stepHeight = Math.max(targetHeight, current.getHeight() / 2);
+            BufferedImage step = new BufferedImage(stepWidth, stepHeight, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = step.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                // JPEG has no alpha; flatten transparency onto white
+                g.drawImage(current, 0, 0, stepWidth, stepHeight, Color.WHITE, null);
+            } finally {
+                g.dispose();
+            }
+            current = step;
+        } while (current.getWidth() != targetWidth || current.getHeight() != targetHeight);
+        return current;
+    }
+
+    private void write(BufferedImage image, Path target) throws IOException {
+        Path staged = target.resolveSibling("." + target.getFileName() + ".part");
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(staged.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        Files.move(staged, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,95 @@
+package com.vaahan.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.vaahan.repository.ViolationReportRepository;
+import com.vaahan.service.NearDuplicateService;
+import com.vaahan.util.HammingIndex;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory multi-index Hamming table of report image hashes, rebuilt from violation_reports at
+ * startup. A search probes a few hundred buckets rather than scanning every hash, so matching a
+ * submission stays well under a millisecond with a million indexed reports.
+ */
+@Service
+@Slf4j
+public class NearDuplicateServiceImpl implements NearDuplicateService {
+
+    // Out of 64 bits; recompressed and resized copies of one photo typically differ by under 5
+    @Value("${reports.duplicates.max-distance:10}")
+    private int maxDistance;
+
+    @Value("${reports.duplicates.max-results:20}")
+    private int maxResults;
+
+    @Autowired
+    private ViolationReportRepository reportRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final HammingIndex index = new HammingIndex();
+
+    @PostConstruct
+    void init() {
+        List<Object[]> hashes = reportRepository.findImageHashes();
+        lock.writeLock().lock();
+        try {
+            for (Object[] row : hashes) {
+                index.add((Long) row[1], (Long) row[0]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Gauge.builder("reports.duplicates.indexed", this, service -> service.size())
+                .description("Reports in the near-duplicate image index")
+                .register(meterRegistry);
+        log.info("Near-duplicate index built with {} reports", hashes.size());
+    }
+
+    @Override
+    public List<Long> findNearDuplicates(long imageHash) {
+        List<Long> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            index.search(imageHash, maxDistance, matches::add);
+        } finally {
+            lock.readLock().unlock();
+        }
+        Collections.sort(matches);
+        return matches.size() > maxResults ? matches.subList(0, maxResults) : matches;
+    }
+
+    @Override
+    public void register(long reportId, long imageHash) {
+        lock.writeLock().lock();
+        try {
+            index.add(imageHash, reportId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
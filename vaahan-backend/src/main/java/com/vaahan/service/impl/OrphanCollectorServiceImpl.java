@@ -0,0 +1,405 @@
+package com.vaahan.service.impl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.vaahan.dto.OrphanReportDTO;
+import com.vaahan.repository.ViolationReportRepository;
+import com.vaahan.service.FileStorageService;
+import com.vaahan.service.OrphanCollectorService;
+import com.vaahan.util.ImageVariant;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Finds stored images no report points at: uploads whose report was never saved and files
+ * uploaded through /api/files/upload and never used. The shard directories are walked in name
+ * order and merge-joined against violation_reports.image_url, read in the same order in
+ * keyset-paginated chunks, so memory stays bounded by one shard directory and one chunk.
+ * File system work is paced to a fixed rate on a low-priority thread.
+ */
+@Service
+@Slf4j
+public class OrphanCollectorServiceImpl implements OrphanCollectorService, DisposableBean {
+
+    private static final Pattern SHARD = Pattern.compile("[0-9a-f]{2}");
+    private static final Pattern ORIGINAL = Pattern.compile("[0-9a-f]{64}\\.[a-z0-9]{1,5}");
+    private static final Pattern VARIANT = Pattern.compile("([0-9a-f]{64})\\.("
+            + Arrays.stream(ImageVariant.values()).map(ImageVariant::getSuffix).collect(Collectors.joining("|"))
+            + ")\\.jpg");
+    private static final Pattern STAGED = Pattern.compile("\\..+\\.part");
+
+    @Value("${file.upload.path}")
+    private String uploadPath;
+
+    @Value("${file.gc.enabled:false}")
+    private boolean scheduled;
+
+    @Value("${file.gc.dry-run:true}")
+    private boolean scheduledDryRun;
+
+    @Value("${file.gc.initial-delay-minutes:60}")
+    private long initialDelayMinutes;
+
+    @Value("${file.gc.interval-hours:24}")
+    private long intervalHours;
+
+    @Value("${file.gc.grace-hours:24}")
+    private long graceHours;
+
+    @Value("${file.gc.quarantine:true}")
+    private boolean quarantine;
+
+    @Value("${file.gc.quarantine-path:./uploads/.quarantine}")
+    private String quarantinePath;
+
+    @Value("${file.gc.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${file.gc.max-files-per-second:500}")
+    private int maxFilesPerSecond;
+
+    // References under another URL prefix cannot be merged in order and are held in memory instead
+    @Value("${file.gc.max-foreign-references:100000}")
+    private int maxForeignReferences;
+
+    @Value("${file.gc.sample-size:100}")
+    private int sampleSize;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private ViolationReportRepository reportRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private ScheduledExecutorService executor;
+    private Counter removedCounter;
+    private volatile OrphanReportDTO lastReport;
+
+    @PostConstruct
+    void init() {
+        removedCounter = Counter.builder("storage.orphans.removed")
+                .description("Unreferenced evidence images deleted or quarantined")
+                .register(meterRegistry);
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "orphan-collector");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        if (scheduled) {
+            executor.scheduleWithFixedDelay(() -> collectInBackground(scheduledDryRun),
+                    initialDelayMinutes, TimeUnit.HOURS.toMinutes(intervalHours), TimeUnit.MINUTES);
+            log.info("Orphan collection scheduled every {} hours ({})", intervalHours,
+                    scheduledDryRun ? "dry run" : "live");
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public boolean start(boolean dryRun) {
+        // Taken here rather than in the task, so a second request is refused instead of queued behind the first
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    runHoldingGate(dryRun);
+                } catch (Exception e) {
+                    log.error("Orphan collection failed: {}", e.getMessage(), e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+            throw e;
+        }
+        return true;
+    }
+
+    @Override
+    public OrphanReportDTO getLastReport() {
+        return lastReport;
+    }
+
+    @Override
+    public OrphanReportDTO collect(boolean dryRun) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Orphan collection is already running");
+        }
+        return runHoldingGate(dryRun);
+    }
+
+    // The caller has set running; cleared once the run ends
+    private OrphanReportDTO runHoldingGate(boolean dryRun) {
+        try {
+            OrphanReportDTO report = new Run(dryRun).execute();
+            lastReport = report;
+            return report;
+        } catch (IOException e) {
+            throw new IllegalStateException("Orphan collection failed: " + e.getMessage(), e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void collectInBackground(boolean dryRun) {
+        try {
+            collect(dryRun);
+        } catch (Exception e) {
+            log.error("Orphan collection failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private final class Run {
+        private final boolean dryRun;
+        private final OrphanReportDTO report = new OrphanReportDTO();
+        private final Instant cutoff = Instant.now().minus(Duration.ofHours(graceHours));
+        private final Path quarantineDir = quarantine ? Paths.get(quarantinePath).toAbsolutePath().normalize() : null;
+        private final long pacingNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, maxFilesPerSecond);
+        private long nextSlot = System.nanoTime();
+        private ReferenceCursor references;
+
+        Run(boolean dryRun) {
+            this.dryRun = dryRun;
+        }
+
+        OrphanReportDTO execute() throws IOException {
+            long started = System.nanoTime();
+            report.setDryRun(dryRun);
+            report.setAction(quarantine ? "quarantine" : "delete");
+            report.setStartedAt(LocalDateTime.now());
+
+            Path root = Paths.get(uploadPath).toAbsolutePath().normalize();
+            if (!Files.isDirectory(root)) {
+                log.info("No upload directory at {}, nothing to collect", root);
+                return report;
+            }
+            references = new ReferenceCursor();
+            if (!references.loadForeign()) {
+                return report;
+            }
+
+            log.info("Collecting orphaned uploads in {} ({}, grace period {} hours)", root,
+                    dryRun ? "dry run" : report.getAction(), graceHours);
+            // Shard directories in name order give the files in name order, matching the reference stream
+            for (Path top : sortedChildren(root, SHARD)) {
+                for (Path leaf : sortedChildren(top, SHARD)) {
+                    collectLeaf(leaf);
+                }
+            }
+
+            report.setDurationMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            log.info("Orphan collection finished: {} files scanned, {} referenced, {} orphans ({} bytes), "
+                            + "{} removed, {} leftovers removed, {} within the grace period",
+                    report.getFilesScanned(), report.getReferenced(), report.getOrphans(), report.getOrphanBytes(),
+                    report.getRemoved(), report.getLeftoversRemoved(), report.getSkippedRecent());
+            return report;
+        }
+
+        private void collectLeaf(Path leaf) throws IOException {
+            List<Path> files = sortedChildren(leaf, null);
+            Set<String> originals = new HashSet<>();
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (ORIGINAL.matcher(name).matches()) {
+                    originals.add(name.substring(0, 64));
+                }
+            }
+
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (ORIGINAL.matcher(name).matches()) {
+                    collectOriginal(file, name);
+                } else if (STAGED.matcher(name).matches()) {
+                    // Left by an upload or variant write that died before its rename
+                    removeLeftover(file);
+                } else {
+                    Matcher variant = VARIANT.matcher(name);
+                    if (variant.matches() && !originals.contains(variant.group(1))) {
+                        removeLeftover(file);
+                    }
+                }
+            }
+        }
+
+        private void collectOriginal(Path file, String name) throws IOException {
+            pace();
+            report.setFilesScanned(report.getFilesScanned() + 1);
+            if (references.contains(name)) {
+                report.setReferenced(report.getReferenced() + 1);
+                return;
+            }
+            BasicFileAttributes attributes = attributes(file);
+            if (attributes == null) {
+                return;
+            }
+            if (attributes.lastModifiedTime().toInstant().isAfter(cutoff)) {
+                // Possibly an upload whose report is still being saved
+                report.setSkippedRecent(report.getSkippedRecent() + 1);
+                return;
+            }
+            report.setOrphans(report.getOrphans() + 1);
+            report.setOrphanBytes(report.getOrphanBytes() + attributes.size());
+            if (report.getSample().size() < sampleSize) {
+                report.getSample().add(name);
+            }
+            if (!dryRun && fileStorageService.removeOrphan(name, cutoff, quarantineDir)) {
+                report.setRemoved(report.getRemoved() + 1);
+                removedCounter.increment();
+            }
+        }
+
+        private void removeLeftover(Path file) throws IOException {
+            pace();
+            BasicFileAttributes attributes = attributes(file);
+            if (attributes == null || attributes.lastModifiedTime().toInstant().isAfter(cutoff)) {
+                return;
+            }
+            if (!dryRun && Files.deleteIfExists(file)) {
+                report.setLeftoversRemoved(report.getLeftoversRemoved() + 1);
+            }
+        }
+
+        // Spreads file system calls evenly instead of letting the walk saturate the disk
+        private void pace() {
+            long wait = nextSlot - System.nanoTime();
+            if (wait > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Orphan collection interrupted");
+                }
+            }
+            nextSlot = Math.max(nextSlot, System.nanoTime()) + pacingNanos;
+        }
+    }
+
+    /**
+     * Image file names referenced by reports, in ascending order, read from the image_url index a
+     * chunk at a time. Only names of content-addressed files are kept; those are lowercase hex
+     * and an extension, so the column's collation orders them exactly as String.compareTo does.
+     */
+    private final class ReferenceCursor {
+        private final String urlPrefix;
+        private final String likePrefix;
+        private final Deque<String> buffer = new ArrayDeque<>();
+        private final Set<String> foreign = new HashSet<>();
+        private String after = "";
+        private boolean exhausted;
+
+        ReferenceCursor() {
+            String sampleUrl = fileStorageService.getFileUrl("x");
+            urlPrefix = sampleUrl.substring(0, sampleUrl.length() - 1);
+            likePrefix = urlPrefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        }
+
+        // Returns false if there are too many references under other URL prefixes to hold in memory
+        boolean loadForeign() {
+            List<String> urls = reportRepository.findImageUrlsNotLike(likePrefix, PageRequest.of(0, maxForeignReferences + 1));
+            if (urls.size() > maxForeignReferences) {
+                log.warn("Over {} report images use a URL other than {}; skipping orphan collection",
+                        maxForeignReferences, urlPrefix);
+                return false;
+            }
+            for (String url : urls) {
+                foreign.add(url.substring(url.lastIndexOf('/') + 1));
+            }
+            return true;
+        }
+
+        // Names must be asked for in ascending order
+        boolean contains(String name) {
+            if (foreign.contains(name)) {
+                return true;
+            }
+            while (true) {
+                if (buffer.isEmpty()) {
+                    if (exhausted) {
+                        return false;
+                    }
+                    fill();
+                    continue;
+                }
+                int comparison = buffer.peekFirst().compareTo(name);
+                if (comparison >= 0) {
+                    return comparison == 0;
+                }
+                buffer.pollFirst();
+            }
+        }
+
+        private void fill() {
+            List<String> urls = reportRepository.findImageUrlsAfter(likePrefix, after, PageRequest.of(0, chunkSize));
+            if (urls.size() < chunkSize) {
+                exhausted = true;
+            }
+            for (String url : urls) {
+                String name = url.substring(urlPrefix.length());
+                if (ORIGINAL.matcher(name).matches()) {
+                    buffer.addLast(name);
+                }
+                after = url;
+            }
+        }
+    }
+
+    private static List<Path> sortedChildren(Path dir, Pattern namePattern) throws IOException {
+        try (Stream<Path> children = Files.list(dir)) {
+            return children
+                    // Leaves are listed without a stat per entry; only shard directories are checked
+                    .filter(path -> namePattern == null
+                            || namePattern.matcher(path.getFileName().toString()).matches() && Files.isDirectory(path))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static BasicFileAttributes attributes(Path file) throws IOException {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null; // Removed since the listing
+        }
+    }
+}
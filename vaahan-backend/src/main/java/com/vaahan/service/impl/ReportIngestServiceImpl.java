@@ -0,0 +1,436 @@
+package com.vaahan.service.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vaahan.dto.BatchReportResultDTO;
+import com.vaahan.dto.IngestStatusDTO;
+import com.vaahan.entities.User;
+import com.vaahan.entities.ViolationReport;
+import com.vaahan.exception.FileStorageException;
+import com.vaahan.repository.ViolationReportRepository;
+import com.vaahan.service.ReportIngestService;
+import com.vaahan.service.UserService;
+import com.vaahan.service.ViolationReportService;
+import com.vaahan.util.ImageType;
+import com.vaahan.util.Mapper;
+import com.vaahan.util.StagedMultipartFile;
+import com.vaahan.util.TransientFailures;
+import com.vaahan.util.WriteAheadLog;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Accept-then-persist report ingestion. The request thread only validates, renames the spooled
+ * image into a staging directory and appends the form fields to a write-ahead log; a single
+ * drainer then stores images and saves reports in batches. Entries are acknowledged in the log
+ * once their outcome is final, and unacknowledged ones are replayed on startup. Each saved report
+ * carries its tracking id, so an entry replayed after it was saved is recognised and skipped.
+ */
+@Service
+@Slf4j
+public class ReportIngestServiceImpl implements ReportIngestService, DisposableBean {
+
+    private static final int HEADER_PROBE_BYTES = 16;
+
+    @Value("${reports.ingest.async:false}")
+    private boolean enabled;
+
+    @Value("${reports.ingest.dir:./uploads/.ingest}")
+    private String ingestDir;
+
+    @Value("${reports.ingest.segment-bytes:8388608}")
+    private int segmentBytes;
+
+    @Value("${reports.ingest.sync-window-micros:500}")
+    private long syncWindowMicros;
+
+    @Value("${reports.ingest.sync-timeout-seconds:10}")
+    private long syncTimeoutSeconds;
+
+    @Value("${reports.ingest.batch-size:" + ViolationReport.ID_ALLOCATION_SIZE + "}")
+    private int batchSize;
+
+    @Value("${reports.ingest.retry-delay-seconds:5}")
+    private long retryDelaySeconds;
+
+    @Value("${reports.ingest.max-attempts:60}")
+    private int maxAttempts;
+
+    @Value("${reports.ingest.status-ttl-seconds:3600}")
+    private long statusTtlSeconds;
+
+    @Autowired
+    private ViolationReportService violationReportService;
+
+    @Autowired
+    private ViolationReportRepository reportRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final LinkedBlockingDeque<Entry> queue = new LinkedBlockingDeque<>();
+    private WriteAheadLog writeAheadLog;
+    private Path stagingDir;
+    // Outcomes of recent entries; older ones are looked up by tracking id in the database
+    private Cache<String, Tracking> statuses;
+    // Failed attempts per entry sequence, counted from this start; only touched by the drainer
+    private final Map<Long, Integer> attempts = new HashMap<>();
+    private Counter failed;
+    private Thread drainer;
+    private volatile boolean running;
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        Path root = Paths.get(ingestDir).toAbsolutePath().normalize();
+        stagingDir = root.resolve("images");
+        statuses = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(statusTtlSeconds))
+                .build();
+        try {
+            Files.createDirectories(stagingDir);
+            writeAheadLog = new WriteAheadLog(root.resolve("log"), segmentBytes, syncWindowMicros,
+                    TimeUnit.SECONDS.toMillis(syncTimeoutSeconds));
+            for (WriteAheadLog.Record record : writeAheadLog.takeRecovered()) {
+                Entry entry = Entry.decode(record.sequence(), record.payload());
+                statuses.put(entry.trackingId, new Tracking(entry.userId, IngestStatusDTO.pending(entry.trackingId)));
+                queue.add(entry);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open report ingestion log in " + root, e);
+        }
+
+        Gauge.builder("reports.ingest.queue", writeAheadLog, WriteAheadLog::pendingCount)
+                .description("Reports accepted but not yet saved")
+                .register(meterRegistry);
+        failed = Counter.builder("reports.ingest.failed")
+                .description("Accepted reports that could not be saved")
+                .register(meterRegistry);
+
+        running = true;
+        drainer = new Thread(this::drain, "report-ingest-drainer");
+        drainer.start();
+        log.info("Asynchronous report ingestion enabled in {} with {} recovered entries", root, queue.size());
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public IngestStatusDTO accept(Long userId, String location, String description, String vehicleNumber,
+                                  MultipartFile image) {
+        // Everything that can be rejected is rejected now; the client gets no second chance later
+        if (isBlank(location) || isBlank(description)) {
+            throw new IllegalArgumentException("Location and description are required");
+        }
+        if (image == null || image.isEmpty()) {
+            throw new FileStorageException("Failed to store empty file");
+        }
+        String trackingId = UUID.randomUUID().toString();
+        Path staged = stagingDir.resolve(trackingId);
+        try {
+            byte[] header;
+            try (InputStream in = image.getInputStream()) {
+                header = in.readNBytes(HEADER_PROBE_BYTES);
+            }
+            if (ImageType.detect(header, header.length) == null) {
+                throw new FileStorageException("Only image files are allowed");
+            }
+
+            image.transferTo(staged.toFile());
+            Entry entry = new Entry(0, trackingId, userId, location, description, vehicleNumber,
+                    image.getOriginalFilename(), image.getContentType());
+            long sequence = writeAheadLog.append(entry.encode(), staged);
+
+            statuses.put(trackingId, new Tracking(userId, IngestStatusDTO.pending(trackingId)));
+            queue.add(entry.withSequence(sequence));
+            log.info("Accepted violation report {} from user id {}", trackingId, userId);
+            return IngestStatusDTO.pending(trackingId);
+
+        } catch (IOException e) {
+            deleteQuietly(staged);
+            throw new UncheckedIOException("Failed to queue report", e);
+        }
+    }
+
+    @Override
+    public IngestStatusDTO getStatus(String trackingId, Long userId) {
+        Tracking tracking = statuses != null ? statuses.getIfPresent(trackingId) : null;
+        if (tracking != null) {
+            return tracking.userId.equals(userId) ? tracking.status : null;
+        }
+        return reportRepository.findByIngestId(trackingId)
+                .filter(report -> report.getUser().getId().equals(userId))
+                .map(report -> IngestStatusDTO.completed(trackingId, Mapper.toViolationReportDTO(report)))
+                .orElse(null);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (!enabled) {
+            return;
+        }
+        // Let the current batch finish; whatever is still queued stays in the log for the next start
+        running = false;
+        drainer.join(TimeUnit.SECONDS.toMillis(30));
+        writeAheadLog.close();
+    }
+
+    private void drain() {
+        while (running) {
+            List<Entry> batch = new ArrayList<>(batchSize);
+            try {
+                Entry first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                List<Entry> retry;
+                String reason = "the database rejected them";
+                try {
+                    retry = persist(batch);
+                } catch (RuntimeException e) {
+                    if (!TransientFailures.isTransient(e)) {
+                        throw e;
+                    }
+                    // The database is unreachable; entries are only acknowledged once final, so the whole
+                    // batch can go round again
+                    retry = batch;
+                    reason = e.getMessage();
+                }
+                if (!retry.isEmpty() && !requeue(retry, reason)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (Throwable e) {
+                // Not the database's fault, so retrying the batch as is would fail the same way; one entry
+                // at a time pins it on the entries at fault. Nothing may end the drainer, which is never restarted
+                if (!persistEach(batch, e)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // False if interrupted
+    private boolean persistEach(List<Entry> batch, Throwable cause) {
+        if (batch.size() == 1) {
+            giveUp(batch.get(0), cause);
+            return true;
+        }
+        List<Entry> retry = new ArrayList<>();
+        String reason = "the database rejected them";
+        for (Entry entry : batch) {
+            try {
+                retry.addAll(persist(List.of(entry)));
+            } catch (Throwable e) {
+                if (TransientFailures.isTransient(e)) {
+                    retry.add(entry);
+                    reason = e.getMessage();
+                } else {
+                    giveUp(entry, e);
+                }
+            }
+        }
+        return retry.isEmpty() || requeue(retry, reason);
+    }
+
+    private void giveUp(Entry entry, Throwable cause) {
+        log.error("Accepted report {} failed to persist", entry.trackingId, cause);
+        fail(entry, "Failed to save report");
+    }
+
+    // Keeps the entries at the head of the queue and waits out the retry delay; entries out of attempts
+    // fail instead. False if interrupted
+    private boolean requeue(List<Entry> entries, String reason) {
+        List<Entry> again = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            if (attempts.merge(entry.sequence, 1, Integer::sum) >= maxAttempts) {
+                log.error("Giving up on accepted report {} after {} attempts: {}", entry.trackingId, maxAttempts, reason);
+                fail(entry, "Failed to save report");
+            } else {
+                again.add(entry);
+            }
+        }
+        if (again.isEmpty()) {
+            return true;
+        }
+        log.warn("Failed to persist {} accepted reports, retrying in {}s: {}", again.size(), retryDelaySeconds, reason);
+        for (int i = again.size() - 1; i >= 0; i--) {
+            queue.addFirst(again.get(i));
+        }
+        try {
+            TimeUnit.SECONDS.sleep(retryDelaySeconds);
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return Entries that failed for a transient reason; they stay unacknowledged in the log
+     */
+    private List<Entry> persist(List<Entry> batch) {
+        List<String> trackingIds = batch.stream().map(entry -> entry.trackingId).toList();
+        // Also the availability check: if this fails nothing has been touched yet
+        Set<String> alreadySaved = new HashSet<>(reportRepository.findIngestIdsIn(trackingIds));
+
+        List<Entry> entries = new ArrayList<>(batch.size());
+        List<ViolationReport> reports = new ArrayList<>(batch.size());
+        List<MultipartFile> images = new ArrayList<>(batch.size());
+        Map<Long, User> users = new HashMap<>();
+        for (Entry entry : batch) {
+            if (alreadySaved.contains(entry.trackingId)) {
+                // Saved before a crash cut off its acknowledgement; the status comes from the database
+                statuses.invalidate(entry.trackingId);
+                finish(entry);
+                continue;
+            }
+            entries.add(entry);
+            reports.add(ViolationReport.builder()
+                    .user(users.computeIfAbsent(entry.userId, userService::getReferenceById))
+                    .location(entry.location)
+                    .description(entry.description)
+                    .vehicleNumber(entry.vehicleNumber)
+                    .imageUrl("") // Will be set after file upload
+                    .ingestId(entry.trackingId)
+                    .build());
+            images.add(new StagedMultipartFile(stagingDir.resolve(entry.trackingId),
+                    entry.originalFilename, entry.contentType));
+        }
+        if (entries.isEmpty()) {
+            return List.of();
+        }
+
+        List<BatchReportResultDTO> results = violationReportService.submitReports(reports, images);
+        List<Entry> retry = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            BatchReportResultDTO result = results.get(i);
+            IngestStatusDTO status;
+            if (result.isRetryable()) {
+                // Its image reference was handed back, and the staged copy is still here for the next attempt
+                retry.add(entry);
+                continue;
+            } else if (result.isSuccess()) {
+                status = IngestStatusDTO.completed(entry.trackingId, result.getReport());
+            } else {
+                fail(entry, result.getMessage());
+                continue;
+            }
+            statuses.put(entry.trackingId, new Tracking(entry.userId, status));
+            finish(entry);
+        }
+        log.debug("Persisted {} accepted reports", entries.size() - retry.size());
+        return retry;
+    }
+
+    private void fail(Entry entry, String message) {
+        failed.increment();
+        log.warn("Accepted report {} could not be saved: {}", entry.trackingId, message);
+        statuses.put(entry.trackingId, new Tracking(entry.userId, IngestStatusDTO.failed(entry.trackingId, message)));
+        finish(entry);
+    }
+
+    private void finish(Entry entry) {
+        attempts.remove(entry.sequence);
+        writeAheadLog.acknowledge(entry.sequence);
+        deleteQuietly(stagingDir.resolve(entry.trackingId));
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to remove staged image {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private record Tracking(Long userId, IngestStatusDTO status) {
+    }
+
+    private record Entry(long sequence, String trackingId, Long userId, String location, String description,
+                         String vehicleNumber, String originalFilename, String contentType) {
+
+        Entry withSequence(long sequence) {
+            return new Entry(sequence, trackingId, userId, location, description, vehicleNumber,
+                    originalFilename, contentType);
+        }
+
+        byte[] encode() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeUTF(trackingId);
+                out.writeLong(userId);
+                out.writeUTF(location);
+                out.writeUTF(description);
+                writeNullable(out, vehicleNumber);
+                writeNullable(out, originalFilename);
+                writeNullable(out, contentType);
+            }
+            return bytes.toByteArray();
+        }
+
+        static Entry decode(long sequence, byte[] payload) throws IOException {
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+                return new Entry(sequence, in.readUTF(), in.readLong(), in.readUTF(), in.readUTF(),
+                        readNullable(in), readNullable(in), readNullable(in));
+            }
+        }
+
+        private static void writeNullable(DataOutputStream out, String value) throws IOException {
+            out.writeBoolean(value != null);
+            if (value != null) {
+                out.writeUTF(value);
+            }
+        }
+
+        private static String readNullable(DataInputStream in) throws IOException {
+            return in.readBoolean() ? in.readUTF() : null;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.vaahan.service.impl;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vaahan.dto.ReviewQueueEvent;
+import com.vaahan.service.ReviewEventService;
+import com.vaahan.util.EventRing;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fans review-queue events out to reviewers over server-sent events. Streams are servlet async
+ * responses, so an idle connection holds no thread. A single dispatcher thread numbers each event,
+ * queues it for every subscriber and replays missed events to new subscribers; doing all three
+ * there means a subscriber gets every event exactly once and in id order, whichever side of a
+ * replay it falls on. Writes happen on a small sender pool, one subscriber at a time, so a slow
+ * client only holds up itself. A client that falls a queue behind, or whose write stalls, is
+ * disconnected and catches up by reconnecting with Last-Event-ID.
+ */
+@Service
+@Slf4j
+public class ReviewEventServiceImpl implements ReviewEventService, DisposableBean {
+
+    @Value("${reviews.events.buffer-size:1024}")
+    private int bufferSize;
+
+    @Value("${reviews.events.max-subscribers:5000}")
+    private int maxSubscribers;
+
+    @Value("${reviews.events.timeout-minutes:30}")
+    private long timeoutMinutes;
+
+    @Value("${reviews.events.heartbeat-seconds:20}")
+    private long heartbeatSeconds;
+
+    @Value("${reviews.events.subscriber-queue:256}")
+    private int subscriberQueue;
+
+    @Value("${reviews.events.send-threads:8}")
+    private int sendThreads;
+
+    @Value("${reviews.events.send-timeout-seconds:10}")
+    private long sendTimeoutSeconds;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private EventRing ring;
+    private ScheduledExecutorService dispatcher;
+    private ExecutorService senders;
+    // Newest event queued for subscribers; only touched on the dispatcher thread
+    private long lastDispatchedId;
+
+    private final class Subscriber {
+        final SseEmitter emitter;
+        final BlockingQueue<Set<DataWithMediaType>> queue = new ArrayBlockingQueue<>(subscriberQueue);
+        // Whether a sender is draining the queue; at most one at a time keeps the writes in order
+        final AtomicBoolean draining = new AtomicBoolean();
+        volatile boolean closed;
+        // When the write in progress started, or 0 between writes
+        volatile long sendingSince;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(Set<DataWithMediaType> event) {
+            if (!queue.offer(event)) {
+                close("fell " + subscriberQueue + " events behind");
+                return;
+            }
+            schedule();
+        }
+
+        // Stops further events; the emitter itself is completed by a sender, never while another thread writes to it
+        void close(String reason) {
+            if (subscribers.remove(this) && !closed) {
+                log.info("Disconnecting review event subscriber that {}", reason);
+            }
+            closed = true;
+            schedule();
+        }
+
+        void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // Shutting down
+                }
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                if (closed) {
+                    queue.clear();
+                    try {
+                        emitter.complete();
+                    } catch (IllegalStateException e) {
+                        // The response already finished
+                    }
+                    return;
+                }
+                Set<DataWithMediaType> event = queue.poll();
+                if (event == null) {
+                    draining.set(false);
+                    // An event queued after the poll but before the flag was cleared is picked up here
+                    if (queue.isEmpty() && !closed || !draining.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+                sendingSince = System.nanoTime();
+                try {
+                    emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    subscribers.remove(this);
+                    closed = true;
+                    queue.clear();
+                    emitter.completeWithError(e);
+                    return;
+                } finally {
+                    sendingSince = 0;
+                }
+            }
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        ring = new EventRing(bufferSize);
+        dispatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "review-events");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger senderCount = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(sendThreads, runnable -> {
+            Thread thread = new Thread(runnable, "review-events-send-" + senderCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Comments keep proxies from closing idle streams and surface dead connections
+        dispatcher.scheduleWithFixedDelay(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        Gauge.builder("reviews.events.subscribers", subscribers, Set::size)
+                .description("Reviewers connected to the review-queue event stream")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void destroy() {
+        dispatcher.shutdownNow();
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    /**
+     * Runs once the publishing transaction commits, so rolled-back changes are never announced
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onQueueEvent(ReviewQueueEvent event) {
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(event.data());
+        } catch (JsonProcessingException e) {
+            log.error("Could not serialize {} event: {}", event.type(), e.getMessage());
+            return;
+        }
+        try {
+            // Ids are assigned here, on the dispatcher, so they reach subscribers in the order they were given
+            dispatcher.execute(() -> {
+                EventRing.Entry entry = ring.append(event.type(), data);
+                Set<DataWithMediaType> sse = toSse(entry);
+                subscribers.forEach(subscriber -> subscriber.offer(sse));
+                lastDispatchedId = entry.id();
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+    }
+
+    @Override
+    public SseEmitter subscribe(String lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new IllegalStateException("Too many review-queue subscribers");
+        }
+        Subscriber subscriber = new Subscriber(newEmitter(TimeUnit.MINUTES.toMillis(timeoutMinutes)));
+        subscriber.emitter.onCompletion(() -> subscriber.close("disconnected"));
+        subscriber.emitter.onTimeout(() -> subscriber.close("timed out"));
+        subscriber.emitter.onError(e -> subscriber.close("failed: " + e.getMessage()));
+        dispatcher.execute(() -> {
+            if (lastEventId != null) {
+                replay(subscriber, lastEventId);
+            }
+            if (!subscriber.closed) {
+                subscribers.add(subscriber);
+            }
+        });
+        return subscriber.emitter;
+    }
+
+    SseEmitter newEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    // Queues what the client missed, or a reset when that is gone or more than its queue holds
+    private void replay(Subscriber subscriber, String lastEventId) {
+        List<EventRing.Entry> missed = null;
+        try {
+            missed = ring.between(Long.parseLong(lastEventId.trim()), lastDispatchedId);
+        } catch (NumberFormatException e) {
+            // Not one of ours; treat it like an expired id
+        }
+        if (missed == null || missed.size() > subscriberQueue) {
+            subscriber.offer(SseEmitter.event().name(ReviewQueueEvent.RESET).data("{}", MediaType.APPLICATION_JSON).build());
+            return;
+        }
+        for (EventRing.Entry entry : missed) {
+            subscriber.offer(toSse(entry));
+        }
+    }
+
+    private void heartbeat() {
+        Set<DataWithMediaType> keepalive = SseEmitter.event().comment("keepalive").build();
+        long stalledBefore = System.nanoTime() - TimeUnit.SECONDS.toNanos(sendTimeoutSeconds);
+        for (Subscriber subscriber : subscribers) {
+            long since = subscriber.sendingSince;
+            if (since != 0 && since - stalledBefore < 0) {
+                subscriber.close("stalled on a write for over " + sendTimeoutSeconds + "s");
+            } else {
+                subscriber.offer(keepalive);
+            }
+        }
+    }
+
+    // Built once per event: a builder appends to itself on every build, so it cannot be sent twice
+    private static Set<DataWithMediaType> toSse(EventRing.Entry entry) {
+        return SseEmitter.event()
+                .id(Long.toString(entry.id()))
+                .name(entry.type())
+                .data(entry.data(), MediaType.APPLICATION_JSON)
+                .build();
+    }
+}
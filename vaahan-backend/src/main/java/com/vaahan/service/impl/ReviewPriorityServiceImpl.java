@@ -0,0 +1,345 @@
+package com.vaahan.service.impl;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.vaahan.dto.ReportPageDTO;
+import com.vaahan.dto.ReviewQueueEvent;
+import com.vaahan.dto.ViolationReportDTO;
+import com.vaahan.entities.ReportStatus;
+import com.vaahan.entities.SeverityLevel;
+import com.vaahan.repository.UserRepository;
+import com.vaahan.repository.ViolationReportRepository;
+import com.vaahan.service.ReviewPriorityService;
+import com.vaahan.util.PriorityCursor;
+import com.vaahan.util.PriorityIndex;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pending reports in in-memory priority indexes, rebuilt from violation_reports at startup and kept
+ * current from committed review-queue events. A report's priority is, in hours of waiting:
+ * <pre>severity points + reliability points * reporter reliability - hours since the epoch at submission</pre>
+ * Every report ages at the same rate, so ageing never reorders the index and the key only changes
+ * when the reporter's track record does. Reliability is (valid + 1) / (total + 2) over the
+ * reporter's totalValidReports and totalReports, which is 0.5 for someone with no history.
+ * <p>
+ * Each report is indexed once overall, once under its severity, once under its category and once
+ * under both, so a filtered page reads only matching reports and starts at its cursor.
+ */
+@Service
+@Slf4j
+public class ReviewPriorityServiceImpl implements ReviewPriorityService {
+
+    private static final Filter ALL = new Filter(null, null);
+
+    @Value("${reports.priority.enabled:true}")
+    private boolean enabled;
+
+    // Points per SeverityLevel, in declaration order: Low, Medium, High, Extreme
+    @Value("${reports.priority.severity-hours:0,12,36,96}")
+    private double[] severityHours;
+
+    @Value("${reports.priority.reliability-hours:24}")
+    private double reliabilityHours;
+
+    @Autowired
+    private ViolationReportRepository reportRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private record Filter(SeverityLevel severity, String category) {
+    }
+
+    private static final class Pending {
+        final ViolationReportDTO report;
+        Long claimedBy;
+        LocalDateTime claimExpiresAt;
+
+        Pending(ViolationReportDTO report) {
+            this.report = report;
+        }
+    }
+
+    // Loaded from users when first seen; dropped when the reporter has nothing pending, and reloaded next time
+    private static final class Reporter {
+        int totalReports;
+        int validReports;
+        final Set<Long> pending = new HashSet<>();
+
+        Reporter(int totalReports, int validReports) {
+            this.totalReports = totalReports;
+            this.validReports = validReports;
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Filter, PriorityIndex<Pending>> indexes = new HashMap<>();
+    private final PriorityIndex<Pending> all = new PriorityIndex<>();
+    private final Map<Long, Reporter> reporters = new HashMap<>();
+
+    @PostConstruct
+    void init() {
+        indexes.put(ALL, all);
+        if (!enabled) {
+            return;
+        }
+        if (severityHours.length != SeverityLevel.values().length) {
+            throw new IllegalStateException("reports.priority.severity-hours needs one value per severity level");
+        }
+        List<ViolationReportDTO> reports = reportRepository.findDtosByStatus(ReportStatus.PENDING);
+        List<Object[]> claims = reportRepository.findClaimsByStatus(ReportStatus.PENDING);
+        List<Object[]> stats = reportRepository.findReporterStatsByStatus(ReportStatus.PENDING);
+        lock.writeLock().lock();
+        try {
+            for (Object[] row : stats) {
+                reporters.put((Long) row[0], new Reporter((Integer) row[1], (Integer) row[2]));
+            }
+            for (ViolationReportDTO report : reports) {
+                Reporter reporter = reporters.computeIfAbsent(report.getUserId(), id -> new Reporter(0, 0));
+                reporter.pending.add(report.getReportId());
+                index(new Pending(report), reporter);
+            }
+            for (Object[] row : claims) {
+                Pending pending = all.get((Long) row[0]);
+                if (pending != null) {
+                    pending.claimedBy = (Long) row[1];
+                    pending.claimExpiresAt = (LocalDateTime) row[2];
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Gauge.builder("reports.priority.indexed", this, service -> service.size())
+                .description("Pending reports in the review priority index")
+                .register(meterRegistry);
+        log.info("Review priority index built with {} pending reports", reports.size());
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public ReportPageDTO getPendingReports(String cursor, SeverityLevel severity, String category, int limit) {
+        PriorityCursor after = PriorityCursor.decode(cursor);
+        List<ViolationReportDTO> items = new ArrayList<>(limit);
+        double[] last = new double[1];
+        boolean[] more = new boolean[1];
+        PriorityIndex.Visitor<Pending> collect = (id, priority, pending) -> {
+            if (items.size() == limit) {
+                more[0] = true;
+                return false;
+            }
+            items.add(pending.report);
+            last[0] = priority;
+            return true;
+        };
+        lock.readLock().lock();
+        try {
+            PriorityIndex<Pending> index = indexes.get(new Filter(severity, category));
+            if (index != null && after == null) {
+                index.walk(collect);
+            } else if (index != null) {
+                index.walkAfter(after.priority(), after.reportId(), collect);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        String nextCursor = more[0] ? new PriorityCursor(last[0], items.get(items.size() - 1).getReportId()).encode() : null;
+        return new ReportPageDTO(items, nextCursor);
+    }
+
+    @Override
+    public List<ViolationReportDTO> findClaimCandidates(Long reviewerId, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<ViolationReportDTO> candidates = new ArrayList<>(limit);
+        lock.readLock().lock();
+        try {
+            all.walk((id, priority, pending) -> {
+                if (pending.claimedBy == null || reviewerId.equals(pending.claimedBy)
+                        || pending.claimExpiresAt == null || pending.claimExpiresAt.isBefore(now)) {
+                    candidates.add(pending.report);
+                }
+                return candidates.size() < limit;
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return candidates;
+    }
+
+    /**
+     * Applies committed queue changes; a report already indexed, such as one loaded by the startup
+     * rebuild, is not counted twice
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onQueueEvent(ReviewQueueEvent event) {
+        if (!enabled) {
+            return;
+        }
+        // Track records of reporters not in memory are read before taking the lock
+        Map<Long, Reporter> loaded = ReviewQueueEvent.SUBMITTED.equals(event.type())
+                ? loadReporters((List<?>) event.data()) : Map.of();
+        lock.writeLock().lock();
+        try {
+            switch (event.type()) {
+                case ReviewQueueEvent.SUBMITTED -> {
+                    for (Object item : (List<?>) event.data()) {
+                        submitted((ViolationReportDTO) item, loaded);
+                    }
+                }
+                case ReviewQueueEvent.CLAIMED -> {
+                    ReviewQueueEvent.Claim claim = (ReviewQueueEvent.Claim) event.data();
+                    for (Long reportId : claim.reportIds()) {
+                        Pending pending = all.get(reportId);
+                        if (pending != null) {
+                            pending.claimedBy = claim.reviewerId();
+                            pending.claimExpiresAt = claim.leaseExpiresAt();
+                        }
+                    }
+                }
+                case ReviewQueueEvent.DECIDED -> {
+                    for (ReviewQueueEvent.Decision decision : ((ReviewQueueEvent.Decisions) event.data()).decisions()) {
+                        decided(decision);
+                    }
+                }
+                default -> {
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Map<Long, Reporter> loadReporters(List<?> reports) {
+        Set<Long> unknown = new HashSet<>();
+        lock.readLock().lock();
+        try {
+            for (Object item : reports) {
+                Long userId = ((ViolationReportDTO) item).getUserId();
+                if (!reporters.containsKey(userId)) {
+                    unknown.add(userId);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Map<Long, Reporter> loaded = new HashMap<>();
+        if (!unknown.isEmpty()) {
+            for (Object[] row : userRepository.findReportCountsByIdIn(unknown)) {
+                loaded.put((Long) row[0], new Reporter((Integer) row[1], (Integer) row[2]));
+            }
+        }
+        return loaded;
+    }
+
+    // A loaded record already counts the reports of the submission that committed before it was read
+    private void submitted(ViolationReportDTO report, Map<Long, Reporter> loaded) {
+        if (all.contains(report.getReportId())) {
+            return;
+        }
+        Reporter reporter = reporters.get(report.getUserId());
+        if (reporter == null) {
+            reporter = loaded.getOrDefault(report.getUserId(), new Reporter(1, 0));
+            reporters.put(report.getUserId(), reporter);
+        } else if (reporter != loaded.get(report.getUserId())) {
+            reporter.totalReports++;
+        }
+        reporter.pending.add(report.getReportId());
+        index(new Pending(report), reporter);
+        reprioritize(reporter);
+    }
+
+    private void decided(ReviewQueueEvent.Decision decision) {
+        Pending pending = all.get(decision.reportId());
+        if (pending == null) {
+            return;
+        }
+        for (Filter filter : filters(pending.report)) {
+            PriorityIndex<Pending> index = indexes.get(filter);
+            index.remove(decision.reportId());
+            if (index.size() == 0 && index != all) {
+                indexes.remove(filter);
+            }
+        }
+        Reporter reporter = reporters.get(pending.report.getUserId());
+        reporter.pending.remove(decision.reportId());
+        if (decision.status() == ReportStatus.APPROVED) {
+            reporter.validReports++;
+            reprioritize(reporter);
+        }
+        if (reporter.pending.isEmpty()) {
+            reporters.remove(pending.report.getUserId());
+        }
+    }
+
+    // The reporter's record changed, so each of their pending reports moves
+    private void reprioritize(Reporter reporter) {
+        for (Long reportId : reporter.pending) {
+            index(all.get(reportId), reporter);
+        }
+    }
+
+    private void index(Pending pending, Reporter reporter) {
+        double priority = priority(pending.report, reporter);
+        for (Filter filter : filters(pending.report)) {
+            indexes.computeIfAbsent(filter, f -> new PriorityIndex<>())
+                    .put(pending.report.getReportId(), priority, pending);
+        }
+    }
+
+    private static List<Filter> filters(ViolationReportDTO report) {
+        SeverityLevel severity = report.getSeverityLevel();
+        String category = report.getViolationCategory();
+        List<Filter> filters = new ArrayList<>(4);
+        filters.add(ALL);
+        if (severity != null) {
+            filters.add(new Filter(severity, null));
+        }
+        if (category != null) {
+            filters.add(new Filter(null, category));
+        }
+        if (severity != null && category != null) {
+            filters.add(new Filter(severity, category));
+        }
+        return filters;
+    }
+
+    private double priority(ViolationReportDTO report, Reporter reporter) {
+        SeverityLevel severity = report.getSeverityLevel();
+        double reliability = (reporter.validReports + 1.0) / (reporter.totalReports + 2.0);
+        double submittedHours = report.getSubmissionTimestamp().toEpochSecond(ZoneOffset.UTC) / 3600.0;
+        return (severity != null ? severityHours[severity.ordinal()] : 0) + reliabilityHours * reliability - submittedHours;
+    }
+
+    private int size() {
+        lock.readLock().lock();
+        try {
+            return all.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
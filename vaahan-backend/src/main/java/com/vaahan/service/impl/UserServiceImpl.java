@@ -12,8 +12,12 @@ import org.springframework.stereotype.Service;
 
 import com.vaahan.dto.User.UserDTO;
 import com.vaahan.entities.User;
+import com.vaahan.entities.UserRole;
+import com.vaahan.entities.UserStatus;
 import com.vaahan.exception.ResourceNotFoundException;
 import com.vaahan.repository.UserRepository;
+import com.vaahan.security.SecurityVersionRegistry;
+import com.vaahan.security.UserDetailsCache;
 import com.vaahan.service.EmailService;
 import com.vaahan.service.UserService;
 import com.vaahan.util.Mapper;
@@ -33,6 +37,12 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private SecurityVersionRegistry securityVersionRegistry;
+
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
     @Override
     public UserDTO getUserById(Long id) {
         log.info("Fetching user with ID: {}", id);
@@ -48,6 +58,7 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", id));
         
+        userDetailsCache.invalidate(user.getUsername(), user.getEmail(), userDTO.getUsername(), userDTO.getEmail());
         user.setUsername(userDTO.getUsername());
         user.setEmail(userDTO.getEmail());
         user.setFirstName(userDTO.getFirstName());
@@ -100,6 +111,37 @@ public class UserServiceImpl implements UserService {
         return userRepository.findByUsername(username);
     }
 
+    @Override
+    public Optional<User> findById(Long id) {
+        log.debug("Finding user by id: {}", id);
+        return userRepository.findById(id);
+    }
+
+    @Override
+    public User getReferenceById(Long id) {
+        return userRepository.getReferenceById(id);
+    }
+
+    @Override
+    public UserDTO updateUserStatus(Long id, UserStatus status) {
+        log.info("Updating status of user {} to: {}", id, status);
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", id));
+        user.setAccountStatus(status);
+        User updatedUser = saveWithNewSecurityVersion(user);
+        return Mapper.toUserDTO(updatedUser);
+    }
+
+    @Override
+    public UserDTO updateUserRole(Long id, UserRole role) {
+        log.info("Updating role of user {} to: {}", id, role);
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", id));
+        user.setRole(role);
+        User updatedUser = saveWithNewSecurityVersion(user);
+        return Mapper.toUserDTO(updatedUser);
+    }
+
     @Override
     public void initiatePasswordReset(String email, String appUrl) {
         User user = userRepository.findByEmail(email)
@@ -122,9 +164,18 @@ public class UserServiceImpl implements UserService {
         user.setPassword(passwordEncoder.encode(newPassword));
         user.setResetToken(null);
         user.setResetTokenExpiry(null);
-        userRepository.save(user);
+        saveWithNewSecurityVersion(user);
         return true;
     }
+
+    // Bumping the security version revokes every token issued before this change
+    private User saveWithNewSecurityVersion(User user) {
+        user.setSecurityVersion(user.getSecurityVersion() + 1);
+        User savedUser = userRepository.save(user);
+        securityVersionRegistry.record(savedUser.getId(), savedUser.getSecurityVersion());
+        userDetailsCache.invalidate(savedUser.getUsername(), savedUser.getEmail());
+        return savedUser;
+    }
 }
 
 
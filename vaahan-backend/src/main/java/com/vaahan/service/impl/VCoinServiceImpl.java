@@ -1,6 +1,10 @@
 package com.vaahan.service.impl;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -81,6 +85,54 @@ public class VCoinServiceImpl implements VCoinService {
         }
     }
 
+    @Override
+    @Transactional
+    public List<VCoinTransaction> awardVCoinsForApprovedReports(List<ViolationReport> reports) {
+        Map<SeverityLevel, Integer> rewards = new EnumMap<>(SeverityLevel.class);
+        for (VCoinConfig config : vCoinConfigRepository.findByIsActiveTrue()) {
+            rewards.put(config.getSeverityLevel(), config.getVCoinsReward());
+        }
+
+        Map<Long, List<ViolationReport>> reportsByUser = new LinkedHashMap<>();
+        for (ViolationReport report : reports) {
+            reportsByUser.computeIfAbsent(report.getUser().getId(), id -> new ArrayList<>()).add(report);
+        }
+
+        List<User> users = new ArrayList<>(reportsByUser.size());
+        List<VCoinTransaction> transactions = new ArrayList<>(reports.size());
+        for (List<ViolationReport> userReports : reportsByUser.values()) {
+            User user = userReports.get(0).getUser();
+            int balance = user.getVCoins();
+            int awarded = 0;
+            for (ViolationReport report : userReports) {
+                SeverityLevel severityLevel = report.getViolation().getSeverityLevel();
+                Integer reward = rewards.get(severityLevel);
+                if (reward == null) {
+                    log.warn("No active VCoin reward for severity {}; report {} earns nothing",
+                            severityLevel, report.getReportId());
+                    continue;
+                }
+                balance += reward;
+                awarded += reward;
+                transactions.add(VCoinTransaction.builder()
+                        .user(user)
+                        .transactionType(VCoinTransaction.TransactionType.EARNED_FROM_VIOLATION_REPORT)
+                        .amount(reward)
+                        .balanceAfter(balance)
+                        .description("Earned " + reward + " VCoins for approved violation report (Severity: " + severityLevel + ")")
+                        .violationReport(report)
+                        .build());
+            }
+            user.addVCoins(awarded);
+            users.add(user);
+        }
+
+        userRepository.saveAll(users);
+        vCoinTransactionRepository.saveAll(transactions);
+        log.info("Awarded VCoins for {} approved reports to {} users", transactions.size(), users.size());
+        return transactions;
+    }
+
     @Override
     public VCoinConfig getVCoinConfigForSeverity(String severityLevel) {
         log.debug("Getting VCoin config for severity level: {}", severityLevel);
@@ -1,23 +1,51 @@
 package com.vaahan.service.impl;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.vaahan.dto.BatchReportResultDTO;
+import com.vaahan.dto.ReportClaimDTO;
+import com.vaahan.dto.ReportPageDTO;
+import com.vaahan.dto.ReviewDecisionDTO;
+import com.vaahan.dto.ReviewDecisionResultDTO;
+import com.vaahan.dto.ReviewQueueEvent;
+import com.vaahan.dto.StoredFile;
 import com.vaahan.dto.ViolationReportDTO;
 import com.vaahan.entities.ReportStatus;
+import com.vaahan.entities.SeverityLevel;
+import com.vaahan.entities.VCoinTransaction;
 import com.vaahan.entities.ViolationReport;
 import com.vaahan.exception.FileStorageException;
+import com.vaahan.exception.LeaseNotHeldException;
 import com.vaahan.exception.ResourceNotFoundException;
+import com.vaahan.repository.UserRepository;
 import com.vaahan.repository.ViolationReportRepository;
 import com.vaahan.service.FileStorageService;
+import com.vaahan.service.ImageVariantService;
+import com.vaahan.service.NearDuplicateService;
+import com.vaahan.service.ReviewPriorityService;
 import com.vaahan.service.VCoinService;
 import com.vaahan.service.ViolationReportService;
 import com.vaahan.util.Mapper;
+import com.vaahan.util.ReportCursor;
+import com.vaahan.util.TransientFailures;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -25,6 +53,10 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class ViolationReportServiceImpl implements ViolationReportService {
 
+    // Bounds of MySQL DATETIME; the first page of a listing starts past one end
+    private static final LocalDateTime FIRST_TIMESTAMP = LocalDateTime.of(1000, 1, 1, 0, 0);
+    private static final LocalDateTime LAST_TIMESTAMP = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
     @Autowired
     private ViolationReportRepository reportRepository;
 
@@ -34,23 +66,59 @@ public class ViolationReportServiceImpl implements ViolationReportService {
     @Autowired
     private FileStorageService fileStorageService;
 
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private NearDuplicateService nearDuplicateService;
+
+    @Autowired
+    private ReviewPriorityService reviewPriorityService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    // Review-queue changes for the reviewer event stream; delivered after commit
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${reports.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${reports.page.max-size:100}")
+    private int maxPageSize;
+
+    @Value("${reports.claim.default-size:10}")
+    private int defaultClaimSize;
+
+    @Value("${reports.claim.max-size:50}")
+    private int maxClaimSize;
+
+    @Value("${reports.claim.lease-minutes:15}")
+    private long leaseMinutes;
+
     @Override
     public ViolationReport submitReport(ViolationReport report) {
         report.setStatus(ReportStatus.PENDING);
-        return reportRepository.save(report);
+        ViolationReport savedReport = reportRepository.save(report);
+        userRepository.addTotalReports(savedReport.getUser().getId(), 1);
+        eventPublisher.publishEvent(ReviewQueueEvent.submitted(List.of(Mapper.toViolationReportDTO(savedReport))));
+        return savedReport;
     }
 
     @Override
     public ViolationReport submitReport(ViolationReport report, MultipartFile image) {
-        log.info("Submitting violation report with image for user: {}", report.getUser().getUsername());
+        log.info("Submitting violation report with image for user id: {}", report.getUser().getId());
         
         try {
             // Handle image upload
+            StoredFile storedFile = null;
             if (image != null && !image.isEmpty()) {
-                String fileName = fileStorageService.storeFile(image);
-                String imageUrl = fileStorageService.getFileUrl(fileName);
+                storedFile = fileStorageService.store(image, report.getUser().getId());
+                String imageUrl = fileStorageService.getFileUrl(storedFile.getFileName());
                 report.setImageUrl(imageUrl);
-                log.info("Image uploaded successfully: {}", fileName);
+                log.info("Image uploaded successfully: {} (sha256 {})", storedFile.getFileName(), storedFile.getSha256());
+                markNearDuplicates(report, storedFile);
             } else {
                 log.warn("No image provided for violation report");
                 report.setImageUrl("");
@@ -61,13 +129,21 @@ public class ViolationReportServiceImpl implements ViolationReportService {
             
             // Save the report
             ViolationReport savedReport = reportRepository.save(report);
+            indexImageHash(savedReport);
+            userRepository.addTotalReports(savedReport.getUser().getId(), 1);
+            eventPublisher.publishEvent(ReviewQueueEvent.submitted(List.of(Mapper.toViolationReportDTO(savedReport))));
+
+            // Thumbnails and previews are made off the request thread
+            if (storedFile != null) {
+                imageVariantService.generateAsync(storedFile.getFileName());
+            }
             
             log.info("Violation report submitted successfully with ID: {}", savedReport.getReportId());
             return savedReport;
             
         } catch (FileStorageException e) {
             log.error("Failed to upload image for violation report: {}", e.getMessage(), e);
-            throw new RuntimeException("Failed to upload image: " + e.getMessage());
+            throw e;
         } catch (Exception e) {
             log.error("Error submitting violation report: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to submit report: " + e.getMessage());
@@ -75,34 +151,251 @@ public class ViolationReportServiceImpl implements ViolationReportService {
     }
 
     @Override
-    public List<ViolationReportDTO> getReportsByUser(Long userId) {
-        return reportRepository.findByUser_Id(userId)
-                .stream()
-                .map(Mapper::toViolationReportDTO)
+    public List<BatchReportResultDTO> submitReports(List<ViolationReport> reports, List<MultipartFile> images) {
+        log.info("Submitting batch of {} violation reports", reports.size());
+
+        BatchReportResultDTO[] results = new BatchReportResultDTO[reports.size()];
+        StoredFile[] storedFiles = new StoredFile[reports.size()];
+        List<Integer> accepted = new ArrayList<>();
+
+        for (int i = 0; i < reports.size(); i++) {
+            ViolationReport report = reports.get(i);
+            if (isBlank(report.getLocation()) || isBlank(report.getDescription())) {
+                results[i] = BatchReportResultDTO.failure(i, "Location and description are required");
+                continue;
+            }
+            try {
+                storedFiles[i] = fileStorageService.store(images.get(i), report.getUser().getId());
+                report.setImageUrl(fileStorageService.getFileUrl(storedFiles[i].getFileName()));
+                report.setStatus(ReportStatus.PENDING);
+                markNearDuplicates(report, storedFiles[i]);
+                accepted.add(i);
+            } catch (FileStorageException e) {
+                results[i] = BatchReportResultDTO.failure(i, "Image upload failed: " + e.getMessage());
+            } catch (RuntimeException e) {
+                if (TransientFailures.isTransient(e)) {
+                    // The database went away mid-batch; hand back the references taken so far, so a retry
+                    // of the whole batch does not take them twice
+                    for (int j = 0; j <= i; j++) {
+                        releaseQuietly(storedFiles[j]);
+                    }
+                    throw e;
+                }
+                // Something about this report itself, such as an image no reader can make sense of
+                log.error("Failed to process report {} of batch: {}", i, e.getMessage());
+                releaseQuietly(storedFiles[i]);
+                storedFiles[i] = null;
+                results[i] = BatchReportResultDTO.failure(i, "Failed to process report");
+            }
+        }
+
+        if (!accepted.isEmpty()) {
+            try {
+                // Sequence ids are pre-allocated, so the inserts are flushed as one JDBC batch at commit
+                reportRepository.saveAll(accepted.stream().map(reports::get).collect(Collectors.toList()));
+            } catch (RuntimeException e) {
+                log.warn("Batch insert failed, saving reports individually: {}", e.getMessage());
+                saveIndividually(reports, accepted, storedFiles, results);
+            }
+        }
+
+        for (int i : accepted) {
+            if (results[i] == null) {
+                indexImageHash(reports.get(i));
+                results[i] = BatchReportResultDTO.success(i, Mapper.toViolationReportDTO(reports.get(i)));
+                imageVariantService.generateAsync(storedFiles[i].getFileName());
+            }
+        }
+
+        List<ViolationReportDTO> saved = Arrays.stream(results)
+                .filter(BatchReportResultDTO::isSuccess)
+                .map(BatchReportResultDTO::getReport)
                 .collect(Collectors.toList());
+        if (!saved.isEmpty()) {
+            saved.stream()
+                    .collect(Collectors.groupingBy(ViolationReportDTO::getUserId, Collectors.counting()))
+                    .forEach((userId, count) -> userRepository.addTotalReports(userId, count.intValue()));
+            eventPublisher.publishEvent(ReviewQueueEvent.submitted(saved));
+        }
+        log.info("Batch submission finished: {} of {} reports saved", saved.size(), reports.size());
+        return Arrays.asList(results);
+    }
+
+    // Fallback after a failed batch, to pin the failure on the offending rows only
+    private void saveIndividually(List<ViolationReport> reports, List<Integer> accepted,
+                                  StoredFile[] storedFiles, BatchReportResultDTO[] results) {
+        for (int i : accepted) {
+            ViolationReport report = reports.get(i);
+            report.setReportId(null);
+            try {
+                reportRepository.save(report);
+            } catch (RuntimeException e) {
+                log.error("Failed to save report {} of batch: {}", i, e.getMessage());
+                results[i] = TransientFailures.isTransient(e)
+                        ? BatchReportResultDTO.retryableFailure(i, "Failed to save report")
+                        : BatchReportResultDTO.failure(i, "Failed to save report");
+                releaseQuietly(storedFiles[i]);
+            }
+        }
+    }
+
+    private void releaseQuietly(StoredFile storedFile) {
+        if (storedFile == null) {
+            return;
+        }
+        try {
+            fileStorageService.deleteFile(storedFile.getFileName());
+        } catch (RuntimeException e) {
+            log.error("Failed to release evidence {}; its reference count is one too high: {}",
+                    storedFile.getFileName(), e.getMessage());
+        }
+    }
+
+    // Points the report at the earliest one with a near-identical image so reviewers can handle them together
+    private void markNearDuplicates(ViolationReport report, StoredFile storedFile) {
+        Long imageHash = storedFile.getPerceptualHash();
+        if (imageHash == null) {
+            return;
+        }
+        report.setImageHash(imageHash);
+        List<Long> duplicates = nearDuplicateService.findNearDuplicates(imageHash);
+        if (!duplicates.isEmpty()) {
+            report.setDuplicateOf(duplicates.get(0));
+            log.info("Report image {} looks like the evidence of reports {}", storedFile.getFileName(), duplicates);
+        }
+    }
+
+    private void indexImageHash(ViolationReport savedReport) {
+        if (savedReport.getImageHash() != null) {
+            nearDuplicateService.register(savedReport.getReportId(), savedReport.getImageHash());
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
     }
 
     @Override
-    public List<ViolationReportDTO> getAllPendingReports() {
-        return reportRepository.findByStatus(ReportStatus.PENDING)
-                .stream()
-                .map(Mapper::toViolationReportDTO)
-                .collect(Collectors.toList());
+    public ReportPageDTO getReportsByUser(Long userId, String cursor, SeverityLevel severity, String category,
+                                          Integer limit) {
+        ReportCursor before = ReportCursor.decode(cursor);
+        int size = pageSize(limit);
+        // One extra row tells whether another page follows
+        List<ViolationReportDTO> rows = reportRepository.findPageByUser(userId,
+                before != null ? before.submissionTimestamp() : LAST_TIMESTAMP,
+                before != null ? before.reportId() : Long.MAX_VALUE,
+                severity, blankToNull(category), PageRequest.of(0, size + 1));
+        return toPage(rows, size);
+    }
+
+    @Override
+    public ReportPageDTO getPendingReports(String cursor, SeverityLevel severity, String category, Integer limit) {
+        if (reviewPriorityService.isEnabled()) {
+            return reviewPriorityService.getPendingReports(cursor, severity, blankToNull(category), pageSize(limit));
+        }
+        ReportCursor after = ReportCursor.decode(cursor);
+        int size = pageSize(limit);
+        List<ViolationReportDTO> rows = reportRepository.findPageByStatus(ReportStatus.PENDING,
+                after != null ? after.submissionTimestamp() : FIRST_TIMESTAMP,
+                after != null ? after.reportId() : 0L,
+                severity, blankToNull(category), PageRequest.of(0, size + 1));
+        return toPage(rows, size);
+    }
+
+    private int pageSize(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return defaultPageSize;
+        }
+        return Math.min(limit, maxPageSize);
+    }
+
+    private static ReportPageDTO toPage(List<ViolationReportDTO> rows, int size) {
+        if (rows.size() <= size) {
+            return new ReportPageDTO(rows, null);
+        }
+        List<ViolationReportDTO> items = rows.subList(0, size);
+        ViolationReportDTO last = items.get(size - 1);
+        return new ReportPageDTO(items, new ReportCursor(last.getSubmissionTimestamp(), last.getReportId()).encode());
+    }
+
+    private static String blankToNull(String value) {
+        return isBlank(value) ? null : value.trim();
     }
 
     @Override
     @Transactional
-    public ViolationReport updateReportStatus(Long reportId, String status) {
-        log.info("Updating report {} status to: {}", reportId, status);
-        
-        ViolationReport report = reportRepository.findById(reportId)
-                .orElseThrow(() -> new ResourceNotFoundException("ViolationReport", "id", reportId));
+    public ReportClaimDTO claimReports(Long reviewerId, Integer limit) {
+        int size = limit == null || limit <= 0 ? defaultClaimSize : Math.min(limit, maxClaimSize);
+        LocalDateTime now = LocalDateTime.now();
+        if (reviewPriorityService.isEnabled()) {
+            return claimByPriority(reviewerId, size, now);
+        }
+        // The row locks last until commit, so concurrent claimers skip these reports instead of queueing behind them
+        List<Long> reportIds = reportRepository.lockClaimable(reviewerId, now, size);
+        if (reportIds.isEmpty()) {
+            return new ReportClaimDTO(List.of(), null);
+        }
+        LocalDateTime expiresAt = now.plusMinutes(leaseMinutes);
+        reportRepository.claim(reportIds, reviewerId, expiresAt);
+        eventPublisher.publishEvent(ReviewQueueEvent.claimed(reviewerId, reportIds, expiresAt));
+        log.info("Reviewer {} claimed {} reports until {}", reviewerId, reportIds.size(), expiresAt);
+        return new ReportClaimDTO(reportRepository.findDtosByReportIdIn(reportIds), expiresAt);
+    }
+
+    // Candidates come from the index; the lock still arbitrates, so twice as many are offered in case other
+    // reviewers hold some of them or the index has not yet seen a committed claim. If that still leaves the
+    // claim short, the rest comes from the oldest claimable reports, as without the index
+    private ReportClaimDTO claimByPriority(Long reviewerId, int size, LocalDateTime now) {
+        List<ViolationReportDTO> candidates = reviewPriorityService.findClaimCandidates(reviewerId, size * 2);
+        Set<Long> locked = candidates.isEmpty() ? new HashSet<>() : new HashSet<>(reportRepository.lockClaimableIn(
+                candidates.stream().map(ViolationReportDTO::getReportId).collect(Collectors.toList()), reviewerId, now));
+        List<ViolationReportDTO> claimed = candidates.stream()
+                .filter(report -> locked.contains(report.getReportId()))
+                .limit(size)
+                .collect(Collectors.toCollection(ArrayList::new));
+        if (claimed.size() < size) {
+            // Rows this transaction already locked are not skipped, so ask for enough to cover them
+            List<Long> fallbackIds = reportRepository.lockClaimable(reviewerId, now, size - claimed.size() + locked.size())
+                    .stream()
+                    .filter(reportId -> !locked.contains(reportId))
+                    .limit(size - claimed.size())
+                    .collect(Collectors.toList());
+            if (!fallbackIds.isEmpty()) {
+                claimed.addAll(reportRepository.findDtosByReportIdIn(fallbackIds));
+            }
+        }
+        if (claimed.isEmpty()) {
+            return new ReportClaimDTO(List.of(), null);
+        }
+        List<Long> reportIds = claimed.stream().map(ViolationReportDTO::getReportId).collect(Collectors.toList());
+        LocalDateTime expiresAt = now.plusMinutes(leaseMinutes);
+        reportRepository.claim(reportIds, reviewerId, expiresAt);
+        eventPublisher.publishEvent(ReviewQueueEvent.claimed(reviewerId, reportIds, expiresAt));
+        log.info("Reviewer {} claimed {} reports by priority until {}", reviewerId, reportIds.size(), expiresAt);
+        return new ReportClaimDTO(claimed, expiresAt);
+    }
+
+    @Override
+    @Transactional
+    public ViolationReportDTO updateReportStatus(Long reportId, String status, Long reviewerId) {
+        log.info("Reviewer {} updating report {} status to: {}", reviewerId, reportId, status);
         
         ReportStatus newStatus = ReportStatus.valueOf(status.toUpperCase());
-        report.setStatus(newStatus);
+        // Checking the lease and writing the decision in one statement leaves no gap for the lease to change hands
+        if (reportRepository.decide(reportId, reviewerId, newStatus, LocalDateTime.now()) == 0) {
+            if (!reportRepository.existsById(reportId)) {
+                throw new ResourceNotFoundException("ViolationReport", "id", reportId);
+            }
+            throw new LeaseNotHeldException("Report " + reportId + " is not claimed by this reviewer or its lease has expired");
+        }
+        ViolationReport report = reportRepository.findForReviewByReportId(reportId)
+                .orElseThrow(() -> new ResourceNotFoundException("ViolationReport", "id", reportId));
+        eventPublisher.publishEvent(ReviewQueueEvent.decided(reviewerId,
+                List.of(new ReviewQueueEvent.Decision(reportId, newStatus))));
         
         // If report is approved, award VCoins to the user
         if (newStatus == ReportStatus.APPROVED) {
+            report.getUser().addValidReports(1);
             try {
                 String severityLevel = report.getViolation().getSeverityLevel().toString();
                 vCoinService.awardVCoinsForViolationReport(report.getUser(), severityLevel, reportId);
@@ -113,15 +406,106 @@ public class ViolationReportServiceImpl implements ViolationReportService {
             }
         }
         
-        ViolationReport savedReport = reportRepository.save(report);
         log.info("Successfully updated report {} status to: {}", reportId, status);
-        
-        return savedReport;
+        return Mapper.toViolationReportDTO(report);
+    }
+
+    @Override
+    @Transactional
+    public List<ReviewDecisionResultDTO> decideReports(List<ReviewDecisionDTO> decisions, Long reviewerId) {
+        Map<Long, ReportStatus> statuses = new LinkedHashMap<>();
+        Map<Long, String> rejected = new HashMap<>();
+        for (ReviewDecisionDTO decision : decisions) {
+            Long reportId = decision.getReportId();
+            ReportStatus status = decisionStatus(decision.getStatus());
+            if (reportId == null || rejected.containsKey(reportId)) {
+                continue;
+            }
+            if (status == null) {
+                // A valid decision earlier in the request must not go ahead on its own
+                statuses.remove(reportId);
+                rejected.put(reportId, "Status must be APPROVED or REJECTED");
+            } else if (statuses.putIfAbsent(reportId, status) != null) {
+                statuses.remove(reportId);
+                rejected.put(reportId, "Report appears more than once in the request");
+            }
+        }
+
+        List<Long> held = statuses.isEmpty() ? List.of()
+                : reportRepository.lockDecidable(statuses.keySet(), reviewerId, LocalDateTime.now());
+        Map<ReportStatus, List<Long>> idsByStatus = new EnumMap<>(ReportStatus.class);
+        for (Long reportId : held) {
+            idsByStatus.computeIfAbsent(statuses.get(reportId), status -> new ArrayList<>()).add(reportId);
+        }
+        idsByStatus.forEach((status, reportIds) -> reportRepository.decideAll(reportIds, status));
+        if (!held.isEmpty()) {
+            eventPublisher.publishEvent(ReviewQueueEvent.decided(reviewerId, held.stream()
+                    .map(reportId -> new ReviewQueueEvent.Decision(reportId, statuses.get(reportId)))
+                    .collect(Collectors.toList())));
+        }
+
+        // Read after the updates, so the loaded reports already carry their new status
+        Map<Long, ViolationReport> decided = new HashMap<>();
+        if (!held.isEmpty()) {
+            for (ViolationReport report : reportRepository.findForReviewByReportIdIn(held)) {
+                decided.put(report.getReportId(), report);
+            }
+        }
+        Map<Long, Integer> awards = new HashMap<>();
+        List<ViolationReport> approved = decided.values().stream()
+                .filter(report -> report.getStatus() == ReportStatus.APPROVED)
+                .collect(Collectors.toList());
+        if (!approved.isEmpty()) {
+            // Users are managed, so these updates flush together with the VCoin balances
+            approved.forEach(report -> report.getUser().addValidReports(1));
+            for (VCoinTransaction transaction : vCoinService.awardVCoinsForApprovedReports(approved)) {
+                awards.put(transaction.getViolationReport().getReportId(), transaction.getAmount());
+            }
+        }
+
+        List<Long> undecided = statuses.keySet().stream()
+                .filter(reportId -> !decided.containsKey(reportId))
+                .collect(Collectors.toList());
+        Set<Long> existing = undecided.isEmpty() ? Set.of()
+                : new HashSet<>(reportRepository.findIdsByReportIdIn(undecided));
+
+        List<ReviewDecisionResultDTO> results = new ArrayList<>(decisions.size());
+        for (ReviewDecisionDTO decision : decisions) {
+            Long reportId = decision.getReportId();
+            ViolationReport report = reportId != null ? decided.get(reportId) : null;
+            if (reportId == null) {
+                results.add(ReviewDecisionResultDTO.failure(null, "Report id is required"));
+            } else if (rejected.containsKey(reportId)) {
+                results.add(ReviewDecisionResultDTO.failure(reportId, rejected.get(reportId)));
+            } else if (report != null) {
+                Integer award = awards.get(reportId);
+                results.add(ReviewDecisionResultDTO.success(Mapper.toViolationReportDTO(report),
+                        award != null ? "Report approved; " + award + " VCoins awarded" : "Report " + report.getStatus().name().toLowerCase()));
+            } else if (existing.contains(reportId)) {
+                results.add(ReviewDecisionResultDTO.failure(reportId, "Report is not claimed by this reviewer or its lease has expired"));
+            } else {
+                results.add(ReviewDecisionResultDTO.failure(reportId, "Report not found"));
+            }
+        }
+        log.info("Reviewer {} decided {} of {} reports", reviewerId, decided.size(), decisions.size());
+        return results;
+    }
+
+    private static ReportStatus decisionStatus(String status) {
+        if (isBlank(status)) {
+            return null;
+        }
+        try {
+            ReportStatus parsed = ReportStatus.valueOf(status.trim().toUpperCase());
+            return parsed == ReportStatus.PENDING ? null : parsed;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
     }
 
     @Override
     public ViolationReportDTO getReportById(Long reportId) {
-        ViolationReport report = reportRepository.findById(reportId)
+        ViolationReport report = reportRepository.findDetailByReportId(reportId)
                 .orElseThrow(() -> new ResourceNotFoundException("ViolationReport", "id", reportId));
         return Mapper.toViolationReportDTO(report);
     }
@@ -0,0 +1,51 @@
+package com.vaahan.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bounded log of the most recent events, so a client that reconnects with the id of the last
+ * event it saw can be sent what it missed. Ids increase by one per event; the first id is taken
+ * from the clock so ids from before a restart always fall behind the retained range.
+ */
+public final class EventRing {
+
+    public record Entry(long id, String type, String data) {
+    }
+
+    private final Entry[] entries;
+    private long nextId;
+    private int size;
+
+    public EventRing(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        entries = new Entry[capacity];
+        nextId = System.currentTimeMillis() * 1000;
+    }
+
+    public synchronized Entry append(String type, String data) {
+        Entry entry = new Entry(nextId++, type, data);
+        entries[(int) (entry.id() % entries.length)] = entry;
+        size = Math.min(size + 1, entries.length);
+        return entry;
+    }
+
+    /**
+     * @param lastId The last event the client saw
+     * @param upTo The newest event to include
+     * @return The retained events after lastId up to and including upTo, or null if some were already overwritten
+     */
+    public synchronized List<Entry> between(long lastId, long upTo) {
+        long oldest = nextId - size;
+        if (lastId < oldest - 1 || lastId >= nextId) {
+            return null;
+        }
+        List<Entry> missed = new ArrayList<>();
+        for (long id = lastId + 1; id <= upTo && id < nextId; id++) {
+            missed.add(entries[(int) (id % entries.length)]);
+        }
+        return missed;
+    }
+}
@@ -0,0 +1,243 @@
+package com.vaahan.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Writes immutable stored files to the response: conditional requests are answered with 304,
+ * single and multiple byte ranges are supported, and bodies go out through the container's
+ * sendfile support when available, otherwise through FileChannel.transferTo, or straight from
+ * memory for cached content.
+ */
+@Component
+public class FileResponseWriter {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Value("${file.serving.max-age-seconds:31536000}")
+    private long maxAgeSeconds;
+
+    // Downloads require authentication, so shared caches are opted into explicitly
+    @Value("${file.serving.public-cache:false}")
+    private boolean publicCache;
+
+    private String cacheControl;
+
+    @PostConstruct
+    void init() {
+        cacheControl = (publicCache ? "public" : "private") + ", max-age=" + maxAgeSeconds + ", immutable";
+    }
+
+    /**
+     * Serve a stored file, reading its size and modification time from the filesystem
+     * @param file The file to serve
+     * @param contentType The file's media type
+     * @param request The current request
+     * @param response The current response
+     */
+    public void write(Path file, String contentType, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        write(file, contentType, attributes.size(), attributes.lastModifiedTime().toMillis(), request, response);
+    }
+
+    /**
+     * Serve a stored file whose size and modification time are already known.
+     * The file's name is its ETag, since stored files are never rewritten.
+     * @param file The file to serve
+     * @param contentType The file's media type
+     * @param length The file size in bytes
+     * @param lastModified The modification time in epoch milliseconds
+     * @param request The current request
+     * @param response The current response
+     */
+    public void write(Path file, String contentType, long length, long lastModified,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        respond(file.getFileName().toString(), file, null, contentType, length, lastModified, request, response);
+    }
+
+    /**
+     * Serve a stored file's bytes from memory, with the same headers as when served from disk
+     * @param fileName The stored file name, used as the ETag
+     * @param content The file's bytes, from position to limit
+     * @param contentType The file's media type
+     * @param lastModified The modification time in epoch milliseconds
+     * @param request The current request
+     * @param response The current response
+     */
+    public void write(String fileName, ByteBuffer content, String contentType, long lastModified,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        respond(fileName, null, content.slice(), contentType, content.remaining(), lastModified, request, response);
+    }
+
+    // Exactly one of file and content is set
+    private void respond(String fileName, Path file, ByteBuffer content, String contentType, long length,
+                         long lastModified, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        String etag = "\"" + fileName + "\"";
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // Sets ETag and Last-Modified, and answers If-None-Match / If-Modified-Since with 304
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + fileName + "\"");
+
+        List<HttpRange> ranges = List.of();
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && ifRangeMatches(request, etag, lastModified)) {
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+                long requested = 0;
+                for (HttpRange range : ranges) {
+                    long start = range.getRangeStart(length);
+                    long end = range.getRangeEnd(length);
+                    if (start > end) {
+                        throw new IllegalArgumentException("Range starts beyond the end of the file");
+                    }
+                    requested += end - start + 1;
+                }
+                if (requested > length) {
+                    ranges = List.of(); // Overlapping ranges asking for more than the file; send it whole
+                }
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+        }
+
+        if (ranges.isEmpty()) {
+            response.setContentType(contentType);
+            response.setContentLengthLong(length);
+            send(file, content, 0, length, request, response);
+        } else if (ranges.size() == 1) {
+            long start = ranges.get(0).getRangeStart(length);
+            long end = ranges.get(0).getRangeEnd(length);
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setContentType(contentType);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            response.setContentLengthLong(end - start + 1);
+            send(file, content, start, end + 1, request, response);
+        } else {
+            writeMultipart(file, content, contentType, length, ranges, request, response);
+        }
+    }
+
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        long date = request.getDateHeader(HttpHeaders.IF_RANGE);
+        return date != -1 && lastModified / 1000 <= date / 1000;
+    }
+
+    private static void send(Path file, ByteBuffer content, long start, long end, HttpServletRequest request,
+                             HttpServletResponse response) throws IOException {
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+        if (content != null) {
+            transfer(content, start, end, Channels.newChannel(response.getOutputStream()));
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // The connector streams the file with sendfile after the handler returns
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            transfer(channel, start, end, Channels.newChannel(response.getOutputStream()));
+        }
+    }
+
+    private static void writeMultipart(Path file, ByteBuffer content, String contentType, long length,
+                                       List<HttpRange> ranges, HttpServletRequest request,
+                                       HttpServletResponse response) throws IOException {
+        String boundary = UUID.randomUUID().toString();
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+
+        OutputStream out = response.getOutputStream();
+        WritableByteChannel target = Channels.newChannel(out);
+        try (FileChannel channel = content == null ? FileChannel.open(file, StandardOpenOption.READ) : null) {
+            for (HttpRange range : ranges) {
+                long start = range.getRangeStart(length);
+                long end = range.getRangeEnd(length);
+                out.write(("\r\n--" + boundary + "\r\n"
+                        + HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n"
+                        + HttpHeaders.CONTENT_RANGE + ": bytes " + start + "-" + end + "/" + length + "\r\n\r\n")
+                        .getBytes(StandardCharsets.US_ASCII));
+                if (channel != null) {
+                    transfer(channel, start, end + 1, target);
+                } else {
+                    transfer(content, start, end + 1, target);
+                }
+            }
+        }
+        out.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void transfer(ByteBuffer content, long start, long end, WritableByteChannel target)
+            throws IOException {
+        ByteBuffer range = content.duplicate().limit((int) end).position((int) start);
+        while (range.hasRemaining()) {
+            target.write(range);
+        }
+    }
+
+    private static void transfer(FileChannel channel, long start, long end, WritableByteChannel target)
+            throws IOException {
+        long position = start;
+        while (position < end) {
+            long transferred = channel.transferTo(position, end - position, target);
+            // The file is shorter than its recorded size, say truncated or replaced since it was indexed
+            if (transferred == 0 && position >= channel.size()) {
+                throw new EOFException("File ends at " + position + " before byte " + end);
+            }
+            position += transferred;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.vaahan.util;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.LongConsumer;
+
+/**
+ * Multi-index hashing over 64-bit hashes under Hamming distance. Each hash is split into four
+ * 16-bit chunks, each chunk indexing its own table. Two hashes within distance r must agree to
+ * within r/4 bits on at least one chunk, so a search probes only the buckets near each query
+ * chunk and checks the few entries found there. Not thread-safe.
+ */
+public class HammingIndex {
+
+    private static final int CHUNKS = 4;
+    private static final int CHUNK_BITS = 16;
+    private static final int BUCKETS = 1 << CHUNK_BITS;
+
+    private final int[][][] tables = new int[CHUNKS][BUCKETS][];
+    private final int[][] bucketSizes = new int[CHUNKS][BUCKETS];
+    private long[] hashes = new long[1024];
+    private long[] ids = new long[1024];
+    private int size;
+
+    public void add(long hash, long id) {
+        if (size == hashes.length) {
+            hashes = Arrays.copyOf(hashes, size * 2);
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        int entry = size++;
+        hashes[entry] = hash;
+        ids[entry] = id;
+        for (int chunk = 0; chunk < CHUNKS; chunk++) {
+            int key = chunk(hash, chunk);
+            int[] bucket = tables[chunk][key];
+            int count = bucketSizes[chunk][key];
+            if (bucket == null) {
+                bucket = tables[chunk][key] = new int[2];
+            } else if (count == bucket.length) {
+                bucket = tables[chunk][key] = Arrays.copyOf(bucket, count * 2);
+            }
+            bucket[count] = entry;
+            bucketSizes[chunk][key] = count + 1;
+        }
+    }
+
+    /**
+     * Visit the id of every entry within a Hamming distance of the query
+     * @param hash The query hash
+     * @param maxDistance The largest distance to report
+     * @param visitor Receives each matching id once
+     */
+    public void search(long hash, int maxDistance, LongConsumer visitor) {
+        int chunkDistance = maxDistance / CHUNKS;
+        Set<Integer> seen = new HashSet<>();
+        for (int chunk = 0; chunk < CHUNKS; chunk++) {
+            probe(chunk, chunk(hash, chunk), chunkDistance, 0, hash, maxDistance, seen, visitor);
+        }
+    }
+
+    /**
+     * @return The number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    // Visits every key within flipsLeft bits of key, flipping only bits at or above fromBit
+    private void probe(int chunk, int key, int flipsLeft, int fromBit, long hash, int maxDistance,
+                       Set<Integer> seen, LongConsumer visitor) {
+        int[] bucket = tables[chunk][key];
+        if (bucket != null) {
+            int count = bucketSizes[chunk][key];
+            for (int i = 0; i < count; i++) {
+                int entry = bucket[i];
+                if (Long.bitCount(hashes[entry] ^ hash) <= maxDistance && seen.add(entry)) {
+                    visitor.accept(ids[entry]);
+                }
+            }
+        }
+        if (flipsLeft == 0) {
+            return;
+        }
+        for (int bit = fromBit; bit < CHUNK_BITS; bit++) {
+            probe(chunk, key ^ (1 << bit), flipsLeft - 1, bit + 1, hash, maxDistance, seen, visitor);
+        }
+    }
+
+    private static int chunk(long hash, int chunk) {
+        return (int) (hash >>> (chunk * CHUNK_BITS)) & (BUCKETS - 1);
+    }
+}
@@ -0,0 +1,115 @@
+package com.vaahan.util;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded, expiring record of responses to requests carrying an Idempotency-Key header.
+ * A retry with the same key gets the first response back without the work being repeated, and a
+ * duplicate that arrives while the first request is still running waits for and shares its result.
+ * Keys are scoped per user and operation. Server errors are not remembered, so they can be retried.
+ */
+@Component
+@Slf4j
+public class IdempotencyStore {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    @Value("${idempotency.ttl-seconds:86400}")
+    private long ttlSeconds;
+
+    @Value("${idempotency.max-keys:10000}")
+    private long maxKeys;
+
+    @Value("${idempotency.wait-seconds:30}")
+    private long waitSeconds;
+
+    private Cache<String, CompletableFuture<ResponseEntity<?>>> responses;
+
+    @PostConstruct
+    void init() {
+        responses = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    /**
+     * Run a request handler at most once per idempotency key
+     * @param key The Idempotency-Key header; without one the action simply runs
+     * @param userId The caller, so keys from different users never collide
+     * @param operation Name of the endpoint, so one key cannot replay another endpoint's response
+     * @param action The handler body
+     * @return The handler's response, or the response recorded for an earlier request with the same key
+     */
+    @SuppressWarnings("unchecked")
+    public <T> ResponseEntity<T> execute(String key, Long userId, String operation, Supplier<ResponseEntity<T>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        String scopedKey = userId + ":" + operation + ":" + key;
+        CompletableFuture<ResponseEntity<?>> pending = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<?>> existing = responses.asMap().putIfAbsent(scopedKey, pending);
+        if (existing != null) {
+            return (ResponseEntity<T>) replay(existing, scopedKey);
+        }
+
+        try {
+            ResponseEntity<T> response = action.get();
+            if (response.getStatusCode().is5xxServerError()) {
+                responses.asMap().remove(scopedKey, pending);
+            }
+            pending.complete(response);
+            return response;
+        } catch (RuntimeException | Error e) {
+            // Errors too, or retries with this key would wait on a future nobody completes
+            responses.asMap().remove(scopedKey, pending);
+            pending.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private ResponseEntity<?> replay(CompletableFuture<ResponseEntity<?>> existing, String scopedKey) {
+        ResponseEntity<?> original;
+        try {
+            original = existing.get(waitSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Request with idempotency key {} still in progress", scopedKey);
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (ExecutionException e) {
+            // The first attempt failed without a response; let the client retry it
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+
+        log.info("Replaying response for idempotency key {}", scopedKey);
+        HttpHeaders headers = new HttpHeaders();
+        headers.addAll(original.getHeaders());
+        headers.set(REPLAYED_HEADER, "true");
+        return new ResponseEntity<>(original.getBody(), headers, original.getStatusCode());
+    }
+}
@@ -0,0 +1,81 @@
+package com.vaahan.util;
+
+import java.util.Locale;
+
+/**
+ * Image formats accepted for evidence uploads, recognised from their leading magic bytes
+ * rather than the client-supplied content type or file name.
+ */
+public enum ImageType {
+
+    JPEG("image/jpeg", ".jpg"),
+    PNG("image/png", ".png"),
+    GIF("image/gif", ".gif"),
+    WEBP("image/webp", ".webp");
+
+    private final String mediaType;
+    private final String extension;
+
+    ImageType(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Detect the image type from the start of a file
+     * @param header The first bytes of the file
+     * @param length Number of valid bytes in header
+     * @return The detected type, or null if the bytes are not a supported image
+     */
+    public static ImageType detect(byte[] header, int length) {
+        if (length >= 3 && matches(header, 0, 0xFF, 0xD8, 0xFF)) {
+            return JPEG;
+        }
+        if (length >= 8 && matches(header, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return PNG;
+        }
+        if (length >= 6 && (matches(header, 0, 'G', 'I', 'F', '8', '7', 'a')
+                || matches(header, 0, 'G', 'I', 'F', '8', '9', 'a'))) {
+            return GIF;
+        }
+        if (length >= 12 && matches(header, 0, 'R', 'I', 'F', 'F') && matches(header, 8, 'W', 'E', 'B', 'P')) {
+            return WEBP;
+        }
+        return null;
+    }
+
+    /**
+     * Look up the type a stored file was saved as; stored names always carry the detected type's extension
+     * @param fileName The stored file name, or a legacy upload name
+     * @return The type, or null if the extension is not one of ours
+     */
+    public static ImageType fromFileName(String fileName) {
+        String lowerCase = fileName.toLowerCase(Locale.ROOT);
+        if (lowerCase.endsWith(".jpeg")) {
+            return JPEG;
+        }
+        for (ImageType type : values()) {
+            if (lowerCase.endsWith(type.extension)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    private static boolean matches(byte[] header, int offset, int... signature) {
+        for (int i = 0; i < signature.length; i++) {
+            if ((header[offset + i] & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
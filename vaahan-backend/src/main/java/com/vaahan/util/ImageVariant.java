@@ -0,0 +1,48 @@
+package com.vaahan.util;
+
+import java.util.Locale;
+
+/**
+ * Size-bounded derivatives generated for every evidence image, always encoded as JPEG.
+ */
+public enum ImageVariant {
+
+    THUMBNAIL("thumb", 240),
+    PREVIEW("preview", 1024);
+
+    private final String suffix;
+    private final int maxDimension;
+
+    ImageVariant(String suffix, int maxDimension) {
+        this.suffix = suffix;
+        this.maxDimension = maxDimension;
+    }
+
+    /** Inserted into the derivative's file name, e.g. abcd.thumb.jpg */
+    public String getSuffix() {
+        return suffix;
+    }
+
+    /** Upper bound for both width and height, in pixels */
+    public int getMaxDimension() {
+        return maxDimension;
+    }
+
+    /** Value of the variant request parameter on /api/files */
+    public String getParameter() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param parameter Variant request parameter, case-insensitive
+     * @return The variant, or null if the parameter does not name one
+     */
+    public static ImageVariant fromParameter(String parameter) {
+        for (ImageVariant variant : values()) {
+            if (variant.name().equalsIgnoreCase(parameter)) {
+                return variant;
+            }
+        }
+        return null;
+    }
+}
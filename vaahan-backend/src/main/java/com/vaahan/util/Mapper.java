@@ -49,10 +49,20 @@ public class Mapper {
                 .vehicleNumber(report.getVehicleNumber())
                 .vehicleType(report.getVehicleType())
                 .imageUrl(report.getImageUrl())
+                .thumbnailUrl(variantUrl(report.getImageUrl(), ImageVariant.THUMBNAIL))
+                .previewUrl(variantUrl(report.getImageUrl(), ImageVariant.PREVIEW))
+                .duplicateOf(report.getDuplicateOf())
                 .submissionTimestamp(report.getSubmissionTimestamp())
                 .status(report.getStatus())
-                .violationCategory(report.getViolation().getCategory().getCategoryName())
-                .severityLevel(report.getViolation().getSeverityLevel())
+                .violationCategory(report.getViolation() != null ? report.getViolation().getCategory().getCategoryName() : null)
+                .severityLevel(report.getViolation() != null ? report.getViolation().getSeverityLevel() : null)
                 .build();
     }
+
+    public static String variantUrl(String imageUrl, ImageVariant variant) {
+        if (imageUrl == null || imageUrl.isEmpty()) {
+            return null;
+        }
+        return imageUrl + "?variant=" + variant.getParameter();
+    }
 }
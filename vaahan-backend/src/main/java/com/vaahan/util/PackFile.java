@@ -0,0 +1,360 @@
+package com.vaahan.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only file of images with a sorted offset index beside it. Entries are keyed by a 32-byte
+ * digest and a kind byte; the index is an array of fixed-width records in key order, binary
+ * searched over a memory map, and reads return read-only slices of the memory-mapped data file.
+ * <p>
+ * Files are named by pack id: {@code 00000042.pack} and {@code 00000042.idx}. Both are written
+ * under a {@code .part} name and renamed once synced, index last, so a pack exists only when its
+ * index does. A {@code .pending} marker is created before the renames and stays until the owner
+ * calls {@link #markComplete()}, so work that follows sealing can be resumed after a crash. A crash
+ * part way through the renames leaves a data file or marker without an index; {@link #deleteUnsealed}
+ * removes those along with the partial files, so the pack id can be written again.
+ */
+public final class PackFile {
+
+    public static final int KEY_BYTES = 32;
+
+    private static final int MAGIC = 0x56504b31; // "VPK1"
+    private static final int HEADER_BYTES = 16;
+    // key, kind, 3 reserved, crc, offset, length
+    private static final int RECORD_BYTES = KEY_BYTES + 1 + 3 + 4 + 8 + 4;
+    private static final String DATA_SUFFIX = ".pack";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String PENDING_SUFFIX = ".pending";
+    private static final String PART_SUFFIX = ".part";
+
+    public record Entry(byte[] key, int kind, int crc, long offset, int length) {
+    }
+
+    private final int id;
+    private final Path directory;
+    private final MappedByteBuffer data;
+    private final MappedByteBuffer index;
+    private final int count;
+
+    private PackFile(int id, Path directory, MappedByteBuffer data, MappedByteBuffer index, int count) {
+        this.id = id;
+        this.directory = directory;
+        this.data = data;
+        this.index = index;
+        this.count = count;
+    }
+
+    /**
+     * Map a sealed pack
+     * @throws IOException if the files are missing or the index is malformed
+     */
+    public static PackFile open(Path directory, int id) throws IOException {
+        MappedByteBuffer index = map(directory.resolve(name(id) + INDEX_SUFFIX));
+        if (index.capacity() < HEADER_BYTES || index.getInt(0) != MAGIC) {
+            throw new IOException("Not a pack index: " + name(id) + INDEX_SUFFIX);
+        }
+        int count = index.getInt(4);
+        if ((long) count * RECORD_BYTES + HEADER_BYTES != index.capacity()) {
+            throw new IOException("Truncated pack index: " + name(id) + INDEX_SUFFIX);
+        }
+        MappedByteBuffer data = map(directory.resolve(name(id) + DATA_SUFFIX));
+        if (index.getLong(8) != data.capacity()) {
+            throw new IOException("Pack data does not match its index: " + name(id) + DATA_SUFFIX);
+        }
+        return new PackFile(id, directory, data, index, count);
+    }
+
+    /**
+     * Start a new pack; nothing is visible under the pack's name until {@link Writer#seal()}
+     * @param maxBytes Largest data file to write; a pack is mapped whole, so at most 2 GB
+     */
+    public static Writer create(Path directory, int id, long maxBytes) throws IOException {
+        return new Writer(directory, id, Math.min(maxBytes, Integer.MAX_VALUE));
+    }
+
+    /**
+     * @return The ids of the sealed packs in the directory, ascending
+     */
+    public static List<Integer> list(Path directory) throws IOException {
+        List<Integer> ids = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return ids;
+        }
+        try (var files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.matches("[0-9]{8}\\" + INDEX_SUFFIX))
+                    .forEach(name -> ids.add(Integer.parseInt(name.substring(0, 8))));
+        }
+        ids.sort(Comparator.naturalOrder());
+        return ids;
+    }
+
+    /**
+     * Remove the files of packs that never finished sealing: partial files, and data files or pending
+     * markers whose index was never published. Nothing refers to such a pack, since its writer never
+     * returned from {@link Writer#seal()}.
+     * @return The number of files removed
+     */
+    public static int deleteUnsealed(Path directory) throws IOException {
+        int removed = 0;
+        if (!Files.isDirectory(directory)) {
+            return removed;
+        }
+        List<Path> files;
+        try (var listing = Files.list(directory)) {
+            files = listing.toList();
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            boolean unsealed = name.endsWith(PART_SUFFIX)
+                    || (name.matches("[0-9]{8}(\\" + DATA_SUFFIX + "|\\" + PENDING_SUFFIX + ")")
+                            && !Files.exists(directory.resolve(name.substring(0, 8) + INDEX_SUFFIX)));
+            if (unsealed && Files.deleteIfExists(file)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public long dataBytes() {
+        return data.capacity();
+    }
+
+    /**
+     * @return A read-only view of the entry's bytes, or null if the pack does not hold it
+     */
+    public ByteBuffer find(byte[] key, int kind) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compareAt(middle, key, kind);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                int record = HEADER_BYTES + middle * RECORD_BYTES;
+                return slice(index.getLong(record + KEY_BYTES + 8), index.getInt(record + KEY_BYTES + 16));
+            }
+        }
+        return null;
+    }
+
+    public Entry entry(int position) {
+        int record = HEADER_BYTES + position * RECORD_BYTES;
+        byte[] key = new byte[KEY_BYTES];
+        index.get(record, key);
+        return new Entry(key, index.get(record + KEY_BYTES) & 0xFF, index.getInt(record + KEY_BYTES + 4),
+                index.getLong(record + KEY_BYTES + 8), index.getInt(record + KEY_BYTES + 16));
+    }
+
+    public ByteBuffer read(Entry entry) {
+        return slice(entry.offset(), entry.length());
+    }
+
+    /**
+     * Check every entry against the CRC-32C recorded when it was written
+     * @return The first entry whose bytes do not match, or null if all do
+     */
+    public Entry verify() {
+        for (int i = 0; i < count; i++) {
+            Entry entry = entry(i);
+            CRC32C crc = new CRC32C();
+            crc.update(read(entry));
+            if ((int) crc.getValue() != entry.crc()) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    public boolean isPending() {
+        return Files.exists(directory.resolve(name(id) + PENDING_SUFFIX));
+    }
+
+    public void markComplete() throws IOException {
+        Files.deleteIfExists(directory.resolve(name(id) + PENDING_SUFFIX));
+    }
+
+    /**
+     * Remove the pack's files; its buffers stay readable until they are collected
+     */
+    public void delete() throws IOException {
+        Files.deleteIfExists(directory.resolve(name(id) + INDEX_SUFFIX));
+        Files.deleteIfExists(directory.resolve(name(id) + DATA_SUFFIX));
+        Files.deleteIfExists(directory.resolve(name(id) + PENDING_SUFFIX));
+    }
+
+    private ByteBuffer slice(long offset, int length) {
+        return data.slice((int) offset, length).asReadOnlyBuffer();
+    }
+
+    private int compareAt(int position, byte[] key, int kind) {
+        int record = HEADER_BYTES + position * RECORD_BYTES;
+        for (int i = 0; i < KEY_BYTES; i++) {
+            int comparison = Integer.compare(index.get(record + i) & 0xFF, key[i] & 0xFF);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(index.get(record + KEY_BYTES) & 0xFF, kind);
+    }
+
+    private static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Pack file too large to map: " + file.getFileName());
+            }
+            // The mapping outlives the channel
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static String name(int id) {
+        return String.format("%08d", id);
+    }
+
+    private static void forceDirectory(Path dir) throws IOException {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Some platforms cannot open directories; the renames are still atomic
+        }
+    }
+
+    /**
+     * Appends entries to a new pack. Not thread-safe; each writer fills its own pack.
+     */
+    public static final class Writer implements Closeable {
+        private final Path directory;
+        private final int id;
+        private final long maxBytes;
+        private final Path dataPart;
+        private final FileChannel channel;
+        private final List<Entry> entries = new ArrayList<>();
+        private long position;
+        private boolean sealed;
+
+        private Writer(Path directory, int id, long maxBytes) throws IOException {
+            this.directory = directory;
+            this.id = id;
+            this.maxBytes = maxBytes;
+            Files.createDirectories(directory);
+            dataPart = directory.resolve(name(id) + DATA_SUFFIX + PART_SUFFIX);
+            channel = FileChannel.open(dataPart, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public int size() {
+            return entries.size();
+        }
+
+        public long dataBytes() {
+            return position;
+        }
+
+        /**
+         * @return Whether content of this size still fits in the pack
+         */
+        public boolean fits(long length) {
+            return position + length <= maxBytes;
+        }
+
+        public void append(byte[] key, int kind, byte[] content) throws IOException {
+            if (key.length != KEY_BYTES) {
+                throw new IllegalArgumentException("Pack keys are " + KEY_BYTES + " bytes");
+            }
+            if (!fits(content.length)) {
+                throw new IllegalStateException("Pack " + name(id) + " is full");
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(content);
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            entries.add(new Entry(key.clone(), kind, (int) crc.getValue(), position, content.length));
+            position += content.length;
+        }
+
+        /**
+         * Sync the data, write the sorted index and publish the pack, marked pending
+         */
+        public PackFile seal() throws IOException {
+            channel.force(true);
+            channel.close();
+
+            entries.sort((a, b) -> {
+                int comparison = Arrays.compareUnsigned(a.key(), b.key());
+                return comparison != 0 ? comparison : Integer.compare(a.kind(), b.kind());
+            });
+            for (int i = 1; i < entries.size(); i++) {
+                Entry previous = entries.get(i - 1);
+                Entry current = entries.get(i);
+                if (previous.kind() == current.kind() && Arrays.equals(previous.key(), current.key())) {
+                    throw new IllegalStateException("Duplicate pack entry in " + name(id));
+                }
+            }
+            ByteBuffer index = ByteBuffer.allocate(HEADER_BYTES + entries.size() * RECORD_BYTES);
+            index.putInt(MAGIC).putInt(entries.size()).putLong(position);
+            for (Entry entry : entries) {
+                index.put(entry.key()).put((byte) entry.kind()).put(new byte[3])
+                        .putInt(entry.crc()).putLong(entry.offset()).putInt(entry.length());
+            }
+            index.flip();
+            Path indexPart = directory.resolve(name(id) + INDEX_SUFFIX + PART_SUFFIX);
+            try (FileChannel indexChannel = FileChannel.open(indexPart, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE)) {
+                while (index.hasRemaining()) {
+                    indexChannel.write(index);
+                }
+                indexChannel.force(true);
+            }
+
+            Files.createFile(directory.resolve(name(id) + PENDING_SUFFIX));
+            Files.move(dataPart, directory.resolve(name(id) + DATA_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+            Files.move(indexPart, directory.resolve(name(id) + INDEX_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+            forceDirectory(directory);
+            sealed = true;
+            return open(directory, id);
+        }
+
+        /**
+         * Discard the pack unless it was sealed
+         */
+        @Override
+        public void close() throws IOException {
+            if (sealed) {
+                return;
+            }
+            channel.close();
+            Files.deleteIfExists(dataPart);
+            Files.deleteIfExists(directory.resolve(name(id) + INDEX_SUFFIX + PART_SUFFIX));
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.vaahan.util;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * 64-bit difference hash (dHash) of an image: the picture is reduced to a 9x8 grid of average
+ * brightness and each bit records whether a cell is brighter than its right-hand neighbour.
+ * Recompression, resizing and small exposure changes flip only a few bits, so near-duplicates
+ * are images whose hashes are a small Hamming distance apart.
+ */
+public final class PerceptualHash {
+
+    private static final int GRID_WIDTH = 9;
+    private static final int GRID_HEIGHT = 8;
+    // Decode at roughly this many pixels per grid cell; enough to average out sensor noise
+    private static final int SAMPLES_PER_CELL = 8;
+
+    private PerceptualHash() {
+    }
+
+    /**
+     * @param image The image file
+     * @return The hash, or null if ImageIO cannot decode the file
+     */
+    public static Long compute(Path image) throws IOException {
+        BufferedImage pixels = read(image.toFile());
+        return pixels != null ? compute(pixels) : null;
+    }
+
+    /**
+     * @param image The image bytes; the stream is not closed
+     * @return The hash, or null if ImageIO cannot decode the stream
+     */
+    public static Long compute(InputStream image) throws IOException {
+        BufferedImage pixels = read(image);
+        return pixels != null ? compute(pixels) : null;
+    }
+
+    public static long compute(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double[] cells = new double[GRID_WIDTH * GRID_HEIGHT];
+        int[] counts = new int[cells.length];
+        // Box filter: every source pixel lands in exactly one cell
+        for (int y = 0; y < height; y++) {
+            int row = Math.min(GRID_HEIGHT - 1, y * GRID_HEIGHT / height) * GRID_WIDTH;
+            for (int x = 0; x < width; x++) {
+                int rgb = image.getRGB(x, y);
+                int cell = row + Math.min(GRID_WIDTH - 1, x * GRID_WIDTH / width);
+                cells[cell] += 0.299 * ((rgb >> 16) & 0xFF) + 0.587 * ((rgb >> 8) & 0xFF) + 0.114 * (rgb & 0xFF);
+                counts[cell]++;
+            }
+        }
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = counts[i] > 0 ? cells[i] / counts[i] : 0;
+        }
+
+        long hash = 0;
+        for (int y = 0; y < GRID_HEIGHT; y++) {
+            for (int x = 0; x < GRID_WIDTH - 1; x++) {
+                hash <<= 1;
+                if (cells[y * GRID_WIDTH + x] > cells[y * GRID_WIDTH + x + 1]) {
+                    hash |= 1;
+                }
+            }
+        }
+        return hash;
+    }
+
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    // Subsample while decoding; the hash only needs a few dozen pixels per side
+    private static BufferedImage read(Object source) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source)) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int xSubsampling = Math.max(1, reader.getWidth(0) / (GRID_WIDTH * SAMPLES_PER_CELL));
+                int ySubsampling = Math.max(1, reader.getHeight(0) / (GRID_HEIGHT * SAMPLES_PER_CELL));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(xSubsampling, ySubsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.vaahan.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in the review queue ordered by priority, highest first, then by reportId: the last row
+ * of the previous page. Same token format rules as {@link ReportCursor}.
+ */
+public record PriorityCursor(double priority, long reportId) {
+
+    public String encode() {
+        String position = priority + "," + reportId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param token A token from {@link #encode()}; may be null
+     * @return The cursor, or null for a null or blank token (the first page)
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    public static PriorityCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int comma = position.indexOf(',');
+            return new PriorityCursor(Double.parseDouble(position.substring(0, comma)),
+                    Long.parseLong(position.substring(comma + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.vaahan.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Values keyed by a long id and ordered by priority, highest first, then by ascending id. Lookup,
+ * insertion, reprioritization and removal are O(log n); a walk can start at any position in the
+ * order, so reading k entries after a position costs O(log n + k). Not thread-safe.
+ */
+public class PriorityIndex<V> {
+
+    /**
+     * @return Whether to continue the walk
+     */
+    @FunctionalInterface
+    public interface Visitor<V> {
+        boolean visit(long id, double priority, V value);
+    }
+
+    private record Key(double priority, long id) implements Comparable<Key> {
+        @Override
+        public int compareTo(Key other) {
+            int comparison = Double.compare(other.priority, priority);
+            return comparison != 0 ? comparison : Long.compare(id, other.id);
+        }
+    }
+
+    private final TreeMap<Key, V> ordered = new TreeMap<>();
+    private final Map<Long, Key> keys = new HashMap<>();
+
+    public int size() {
+        return keys.size();
+    }
+
+    public boolean contains(long id) {
+        return keys.containsKey(id);
+    }
+
+    public V get(long id) {
+        Key key = keys.get(id);
+        return key != null ? ordered.get(key) : null;
+    }
+
+    /**
+     * Add an entry, or replace the priority and value of an existing one
+     */
+    public void put(long id, double priority, V value) {
+        Key key = new Key(priority, id);
+        Key previous = keys.put(id, key);
+        if (previous != null) {
+            ordered.remove(previous);
+        }
+        ordered.put(key, value);
+    }
+
+    public boolean remove(long id) {
+        Key key = keys.remove(id);
+        if (key == null) {
+            return false;
+        }
+        ordered.remove(key);
+        return true;
+    }
+
+    /**
+     * Visit entries from the highest priority down until the visitor stops or the index is exhausted
+     */
+    public void walk(Visitor<V> visitor) {
+        walk(ordered, visitor);
+    }
+
+    /**
+     * Like {@link #walk} but starting after the given position, which need not be in the index
+     */
+    public void walkAfter(double priority, long id, Visitor<V> visitor) {
+        walk(ordered.tailMap(new Key(priority, id), false), visitor);
+    }
+
+    private static <V> void walk(NavigableMap<Key, V> entries, Visitor<V> visitor) {
+        for (Map.Entry<Key, V> entry : entries.entrySet()) {
+            if (!visitor.visit(entry.getKey().id(), entry.getKey().priority(), entry.getValue())) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.vaahan.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a report listing ordered by (submissionTimestamp, reportId): the last row of the
+ * previous page. Clients get it as an opaque URL-safe token and send it back unchanged.
+ */
+public record ReportCursor(LocalDateTime submissionTimestamp, long reportId) {
+
+    public String encode() {
+        String position = submissionTimestamp + "," + reportId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param token A token from {@link #encode()}; may be null
+     * @return The cursor, or null for a null or blank token (the first page)
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    public static ReportCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int comma = position.indexOf(',');
+            return new ReportCursor(LocalDateTime.parse(position.substring(0, comma)),
+                    Long.parseLong(position.substring(comma + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.vaahan.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * An upload that was parked on disk before being processed, presented as a MultipartFile so it
+ * goes through the same storage path as a live request. Transferring it links rather than moves,
+ * so the staged copy survives until its owner deletes it.
+ */
+public class StagedMultipartFile implements MultipartFile {
+
+    private final Path file;
+    private final String originalFilename;
+    private final String contentType;
+
+    public StagedMultipartFile(Path file, String originalFilename, String contentType) {
+        this.file = file;
+        this.originalFilename = originalFilename;
+        this.contentType = contentType;
+    }
+
+    @Override
+    public String getName() {
+        return "image";
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return originalFilename;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return getSize() == 0;
+    }
+
+    @Override
+    public long getSize() {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0; // A missing staged file reads as empty and is rejected by storage
+        }
+    }
+
+    @Override
+    public byte[] getBytes() throws IOException {
+        return Files.readAllBytes(file);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return Files.newInputStream(file);
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException {
+        try {
+            Files.createLink(dest.toPath(), file);
+        } catch (UnsupportedOperationException e) {
+            Files.copy(file, dest.toPath());
+        }
+    }
+}
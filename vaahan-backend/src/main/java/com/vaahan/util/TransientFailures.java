@@ -0,0 +1,18 @@
+package com.vaahan.util;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+
+/**
+ * Tells failures worth retrying, because the database was briefly unavailable or lost a race,
+ * from ones that will recur however often the same work is attempted.
+ */
+public final class TransientFailures {
+
+    private TransientFailures() {
+    }
+
+    public static boolean isTransient(Throwable failure) {
+        return failure instanceof TransientDataAccessException || failure instanceof DataAccessResourceFailureException;
+    }
+}
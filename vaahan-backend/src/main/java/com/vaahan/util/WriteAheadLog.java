@@ -0,0 +1,454 @@
+package com.vaahan.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Durable append-only log of opaque records in fixed-size memory-mapped segment files.
+ * {@link #append} returns once the record is on disk; appends that arrive while a sync is running
+ * share the next one, so a burst costs a handful of fsyncs rather than one each. Records are
+ * acknowledged once processed, unacknowledged ones are handed back on the next start, and
+ * segments are deleted from the head as soon as everything in them has been acknowledged.
+ * Record layout: total length (int), type (byte), sequence (long), CRC32 of type, sequence and
+ * payload (int), payload. A zero length or a bad checksum marks the end of a segment.
+ */
+@Slf4j
+public class WriteAheadLog implements Closeable {
+
+    private static final int HEADER_BYTES = 4 + 1 + 8 + 4;
+    private static final byte APPEND = 1;
+    private static final byte ACK = 2;
+    private static final byte[] EMPTY = new byte[0];
+    private static final String SUFFIX = ".wal";
+
+    public record Record(long sequence, byte[] payload) {
+    }
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final long syncWindowNanos;
+    private final long syncTimeoutNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition written = lock.newCondition();
+    private final Condition synced = lock.newCondition();
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    // Unacknowledged records and the segment holding each
+    private final Map<Long, Segment> pending = new HashMap<>();
+    // Files whose contents records appended since the last sync depend on
+    private final Set<Path> unsyncedFiles = new LinkedHashSet<>();
+    private final Thread syncer;
+    private List<Record> recovered;
+    private Segment active;
+    private long nextSequence = 1;
+    private long writeCount;
+    private long syncCount;
+    private Throwable failure;
+    private boolean closed;
+
+    /**
+     * Open the log, reading back whatever an earlier run left unacknowledged
+     * @param directory Where segment files are kept
+     * @param segmentBytes Size of each segment file; bounds the largest record
+     * @param syncWindowMicros How long a sync waits for more appends to join it
+     * @param syncTimeoutMillis How long an append waits for its sync before giving up on the record
+     */
+    public WriteAheadLog(Path directory, int segmentBytes, long syncWindowMicros, long syncTimeoutMillis)
+            throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.syncWindowNanos = TimeUnit.MICROSECONDS.toNanos(syncWindowMicros);
+        this.syncTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(syncTimeoutMillis);
+        Files.createDirectories(directory);
+        recover();
+        active = openSegment(segments.isEmpty() ? 1 : segments.peekLast().index + 1);
+        trimHead();
+
+        syncer = new Thread(this::syncLoop, "wal-sync-" + directory.getFileName());
+        syncer.setDaemon(true);
+        syncer.start();
+    }
+
+    /**
+     * @return Records left unacknowledged by an earlier run, in append order; only returned once
+     */
+    public List<Record> takeRecovered() {
+        List<Record> records = recovered;
+        recovered = List.of();
+        return records;
+    }
+
+    /**
+     * Append a record and wait until it is durable
+     * @param payload The record contents
+     * @param dependency A file the record refers to, synced to disk along with it; may be null
+     * @return The record's sequence number, used to acknowledge it
+     * @throws IOException if the log has failed, or the sync did not finish in time; a record that
+     * timed out is withdrawn, so it is not handed back on the next start
+     */
+    public long append(byte[] payload, Path dependency) throws IOException {
+        lock.lock();
+        try {
+            checkUsable();
+            long sequence = nextSequence++;
+            write(APPEND, sequence, payload);
+            pending.put(sequence, active);
+            active.outstanding++;
+            if (dependency != null) {
+                unsyncedFiles.add(dependency);
+            }
+            long ticket = ++writeCount;
+            written.signal();
+            // Closing still syncs what was written, so only a sync failure or the timeout ends the wait early
+            long remaining = syncTimeoutNanos;
+            while (syncCount < ticket) {
+                if (failure != null) {
+                    throw new IOException("Write-ahead log failed to sync", failure);
+                }
+                if (remaining <= 0) {
+                    acknowledge(sequence);
+                    throw new IOException("Timed out waiting for the write-ahead log to sync");
+                }
+                remaining = synced.awaitNanos(remaining);
+            }
+            return sequence;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for the log to sync");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Mark a record as processed. Acknowledgements are synced with the next append rather than
+     * waited for, so a crash can hand back a record that was already processed.
+     * @param sequence The record's sequence number
+     */
+    public void acknowledge(long sequence) {
+        lock.lock();
+        try {
+            Segment segment = pending.remove(sequence);
+            if (segment == null || closed || failure != null) {
+                return;
+            }
+            write(ACK, sequence, EMPTY);
+            writeCount++;
+            written.signal();
+            segment.outstanding--;
+            trimHead();
+        } catch (IOException e) {
+            log.error("Failed to write acknowledgement to {}: {}", directory, e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Records appended but not yet acknowledged
+     */
+    public int pendingCount() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            written.signalAll();
+            synced.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            syncer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.lock();
+        try {
+            if (failure == null) {
+                force(active.buffer, 0, active.position);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkUsable() throws IOException {
+        if (failure != null) {
+            throw new IOException("Write-ahead log failed to sync", failure);
+        }
+        if (closed) {
+            throw new IOException("Write-ahead log is closed");
+        }
+    }
+
+    // Caller holds the lock
+    private void write(byte type, long sequence, byte[] payload) throws IOException {
+        int length = HEADER_BYTES + payload.length;
+        if (length > segmentBytes) {
+            throw new IOException("Record of " + length + " bytes does not fit a " + segmentBytes + " byte segment");
+        }
+        if (active.position + length > segmentBytes) {
+            roll();
+        }
+        MappedByteBuffer buffer = active.buffer;
+        int position = active.position;
+        buffer.put(position + 4, type);
+        buffer.putLong(position + 5, sequence);
+        buffer.putInt(position + 13, checksum(type, sequence, payload));
+        buffer.put(position + HEADER_BYTES, payload);
+        // Length last, so a reader never sees a length over unwritten bytes within one run
+        buffer.putInt(position, length);
+        active.position += length;
+    }
+
+    // Caller holds the lock; rare enough (once per segment) to sync inline
+    private void roll() throws IOException {
+        try {
+            force(active.buffer, active.syncedPosition, active.position - active.syncedPosition);
+        } catch (IOException e) {
+            failure = e;
+            synced.signalAll();
+            throw e;
+        }
+        active.syncedPosition = active.position;
+        active = openSegment(active.index + 1);
+        forceDirectory(directory);
+        trimHead();
+    }
+
+    // Caller holds the lock. Only the head may go: a later segment can hold acknowledgements for an earlier one
+    private void trimHead() {
+        while (segments.peekFirst() != active && segments.peekFirst().outstanding == 0) {
+            Segment head = segments.pollFirst();
+            try {
+                Files.deleteIfExists(head.path);
+            } catch (IOException e) {
+                log.warn("Failed to delete log segment {}: {}", head.path, e.getMessage());
+            }
+        }
+    }
+
+    private void syncLoop() {
+        while (true) {
+            Segment segment;
+            int from;
+            int to;
+            long target;
+            List<Path> files;
+            lock.lock();
+            try {
+                while (!closed && syncCount == writeCount) {
+                    written.await();
+                }
+                if (syncCount == writeCount) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            if (syncWindowNanos > 0) {
+                // Give appends arriving right behind this one the chance to share the fsync
+                LockSupport.parkNanos(syncWindowNanos);
+            }
+
+            lock.lock();
+            try {
+                segment = active;
+                from = segment.syncedPosition;
+                to = segment.position;
+                target = writeCount;
+                files = new ArrayList<>(unsyncedFiles);
+                unsyncedFiles.clear();
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                Set<Path> directories = new HashSet<>();
+                for (Path file : files) {
+                    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                        channel.force(true);
+                    }
+                    directories.add(file.getParent());
+                }
+                for (Path dir : directories) {
+                    forceDirectory(dir);
+                }
+                force(segment.buffer, from, to - from);
+            } catch (IOException | RuntimeException | Error e) {
+                // Anything that ends this thread must fail the log, or appends would wait on a sync that never comes
+                log.error("Failed to sync write-ahead log {}: {}", directory, e.getMessage());
+                lock.lock();
+                try {
+                    failure = e;
+                    synced.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+
+            lock.lock();
+            try {
+                segment.syncedPosition = Math.max(segment.syncedPosition, to);
+                syncCount = target;
+                synced.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Write a range of a segment to disk. Mapped buffers report I/O errors unchecked; they come back
+     * out of here as IOException.
+     */
+    void force(MappedByteBuffer buffer, int from, int length) throws IOException {
+        try {
+            buffer.force(from, length);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(path -> path.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+        }
+
+        TreeMap<Long, Record> appended = new TreeMap<>();
+        Map<Long, Segment> owners = new HashMap<>();
+        Set<Long> acknowledged = new HashSet<>();
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            Segment segment = new Segment(file, Long.parseLong(name.substring(0, name.length() - SUFFIX.length())),
+                    map(file, FileChannel.MapMode.READ_ONLY));
+            segments.add(segment);
+
+            ByteBuffer buffer = segment.buffer;
+            int position = 0;
+            while (position + HEADER_BYTES <= buffer.capacity()) {
+                int length = buffer.getInt(position);
+                if (length < HEADER_BYTES || position + length > buffer.capacity()) {
+                    break;
+                }
+                byte type = buffer.get(position + 4);
+                long sequence = buffer.getLong(position + 5);
+                byte[] payload = new byte[length - HEADER_BYTES];
+                buffer.get(position + HEADER_BYTES, payload);
+                if (buffer.getInt(position + 13) != checksum(type, sequence, payload)) {
+                    break; // Torn write from a crash; nothing after it was ever acknowledged to a caller
+                }
+                if (type == APPEND) {
+                    appended.put(sequence, new Record(sequence, payload));
+                    owners.put(sequence, segment);
+                } else {
+                    acknowledged.add(sequence);
+                }
+                nextSequence = Math.max(nextSequence, sequence + 1);
+                position += length;
+            }
+        }
+
+        appended.keySet().removeAll(acknowledged);
+        for (Long sequence : appended.keySet()) {
+            Segment segment = owners.get(sequence);
+            segment.outstanding++;
+            pending.put(sequence, segment);
+        }
+        recovered = new ArrayList<>(appended.values());
+        if (!recovered.isEmpty()) {
+            log.info("Recovered {} unacknowledged records from {}", recovered.size(), directory);
+        }
+    }
+
+    private Segment openSegment(long index) throws IOException {
+        Path path = directory.resolve(String.format("%016d%s", index, SUFFIX));
+        Segment segment = new Segment(path, index, map(path, FileChannel.MapMode.READ_WRITE));
+        segments.addLast(segment);
+        return segment;
+    }
+
+    private MappedByteBuffer map(Path path, FileChannel.MapMode mode) throws IOException {
+        if (mode == FileChannel.MapMode.READ_ONLY) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                return channel.map(mode, 0, channel.size());
+            }
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Mapping past the end extends the file; the zero fill reads back as the end of the segment
+            return channel.map(mode, 0, segmentBytes);
+        }
+    }
+
+    private static void forceDirectory(Path dir) {
+        // Makes new directory entries durable; not supported on every platform
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("Could not sync directory {}: {}", dir, e.getMessage());
+        }
+    }
+
+    private static int checksum(byte type, long sequence, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, sequence));
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static final class Segment {
+        private final Path path;
+        private final long index;
+        private final MappedByteBuffer buffer;
+        private int position;
+        private int syncedPosition;
+        private int outstanding;
+
+        Segment(Path path, long index, MappedByteBuffer buffer) {
+            this.path = path;
+            this.index = index;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.vaahan.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.vaahan.dto.ApiResponse;
+import com.vaahan.dto.AuthResponse;
+import com.vaahan.dto.RefreshTokenRequest;
+import com.vaahan.entities.UserRole;
+import com.vaahan.security.CustomUserDetailsService;
+import com.vaahan.security.JwtAuthenticationFilter;
+import com.vaahan.security.JwtUtil;
+import com.vaahan.security.SecurityVersionRegistry;
+import com.vaahan.security.TokenRevocationList;
+import com.vaahan.security.UserPrincipal;
+import com.vaahan.security.VerifiedTokenCache;
+
+/**
+ * Refresh-token rotation and logout, checked end to end through the controller and the
+ * authentication filter with real token signing and revocation.
+ */
+class AuthControllerTests {
+
+    private static final UserPrincipal USER = new UserPrincipal(7L, "reporter", "secret", UserRole.USER, 0, true);
+
+    private final JwtUtil jwtUtil = new JwtUtil();
+    private final TokenRevocationList revocations = new TokenRevocationList();
+    private final AuthController controller = new AuthController();
+    private final JwtAuthenticationFilter filter = new JwtAuthenticationFilter();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache();
+        ReflectionTestUtils.setField(verifiedTokenCache, "maxSize", 100L);
+        ReflectionTestUtils.invokeMethod(verifiedTokenCache, "init");
+
+        ReflectionTestUtils.setField(jwtUtil, "secret", "vaahan_jwt_secret_key_for_tests_long_enough_for_hmac_sha512_signing");
+        ReflectionTestUtils.setField(jwtUtil, "expirationMs", 900_000L);
+        ReflectionTestUtils.setField(jwtUtil, "refreshExpirationMs", 3_600_000L);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedTokenCache", verifiedTokenCache);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+
+        ReflectionTestUtils.setField(revocations, "partitionMinutes", 60L);
+        ReflectionTestUtils.setField(revocations, "bloomBits", 1024);
+        ReflectionTestUtils.setField(revocations, "maxTokenLifetimeMs", 3_600_000L);
+        ReflectionTestUtils.invokeMethod(revocations, "init");
+
+        CustomUserDetailsService userDetailsService = mock(CustomUserDetailsService.class);
+        when(userDetailsService.loadUserByUsername(USER.getUsername())).thenReturn(USER);
+        SecurityVersionRegistry securityVersionRegistry = new SecurityVersionRegistry();
+
+        ReflectionTestUtils.setField(controller, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(controller, "tokenRevocationList", revocations);
+        ReflectionTestUtils.setField(controller, "userDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(controller, "securityVersionRegistry", securityVersionRegistry);
+
+        ReflectionTestUtils.setField(filter, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(filter, "tokenRevocationList", revocations);
+        ReflectionTestUtils.setField(filter, "customUserDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(filter, "securityVersionRegistry", securityVersionRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void refreshRotatesAndRejectsReuse() {
+        String refreshToken = jwtUtil.generateRefreshToken(USER);
+
+        ResponseEntity<ApiResponse<AuthResponse>> first = controller.refresh(new RefreshTokenRequest(refreshToken));
+        ResponseEntity<ApiResponse<AuthResponse>> reused = controller.refresh(new RefreshTokenRequest(refreshToken));
+
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        String rotated = first.getBody().getData().getRefreshToken();
+        assertNotNull(rotated);
+        assertEquals(HttpStatus.UNAUTHORIZED, reused.getStatusCode());
+        assertEquals("Refresh token has already been used", reused.getBody().getMessage());
+        // The rotated token is still good for one refresh
+        assertEquals(HttpStatus.OK, controller.refresh(new RefreshTokenRequest(rotated)).getStatusCode());
+    }
+
+    @Test
+    void accessTokenCannotRefresh() {
+        String accessToken = jwtUtil.generateToken(USER);
+
+        assertEquals(HttpStatus.UNAUTHORIZED, controller.refresh(new RefreshTokenRequest(accessToken)).getStatusCode());
+    }
+
+    @Test
+    void logoutRevokesBothTokens() throws Exception {
+        String accessToken = jwtUtil.generateToken(USER);
+        String refreshToken = jwtUtil.generateRefreshToken(USER);
+        authenticate(accessToken);
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+        SecurityContextHolder.clearContext();
+
+        controller.logout("Bearer " + accessToken, new RefreshTokenRequest(refreshToken));
+
+        authenticate(accessToken);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals(HttpStatus.UNAUTHORIZED, controller.refresh(new RefreshTokenRequest(refreshToken)).getStatusCode());
+    }
+
+    private void authenticate(String accessToken) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/reports");
+        request.setServletPath("/api/reports");
+        request.addHeader("Authorization", "Bearer " + accessToken);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+    }
+}
@@ -0,0 +1,66 @@
+package com.vaahan.security;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class TokenRevocationListTests {
+
+    private static final long PARTITION_MS = TimeUnit.MINUTES.toMillis(1);
+    // Two minutes of token lifetime: four partitions, so a slot comes round again every four minutes
+    private static final int PARTITIONS = 4;
+
+    private TokenRevocationList revocations;
+    // Start of a partition safely in the future
+    private long epochStart;
+
+    @BeforeEach
+    void setUp() {
+        revocations = new TokenRevocationList();
+        ReflectionTestUtils.setField(revocations, "partitionMinutes", 1L);
+        ReflectionTestUtils.setField(revocations, "bloomBits", 1024);
+        ReflectionTestUtils.setField(revocations, "maxTokenLifetimeMs", 2 * PARTITION_MS);
+        revocations.init();
+        epochStart = (System.currentTimeMillis() / PARTITION_MS + 2) * PARTITION_MS;
+    }
+
+    @Test
+    void secondRevocationOfATokenReportsReuse() {
+        assertTrue(revocations.revoke("refresh-1", epochStart + 1000));
+        assertFalse(revocations.revoke("refresh-1", epochStart + 1000));
+        assertTrue(revocations.isRevoked("refresh-1", epochStart + 1000));
+        assertFalse(revocations.isRevoked("refresh-2", epochStart + 1000));
+    }
+
+    @Test
+    void tokensAlreadyExpiredAreNotTracked() {
+        long expired = System.currentTimeMillis() - 1000;
+
+        assertTrue(revocations.revoke("stale", expired));
+        assertTrue(revocations.revoke("stale", expired));
+        assertFalse(revocations.isRevoked("stale", expired));
+    }
+
+    @Test
+    void slotIsRecycledForALaterPartitionOnly() {
+        long first = epochStart + 1000;
+        long neighbour = first + PARTITION_MS;
+        long recycled = first + PARTITIONS * PARTITION_MS;
+        revocations.revoke("first", first);
+        revocations.revoke("neighbour", neighbour);
+
+        // Same slot, later partition: nothing revoked there yet, whatever the slot holds
+        assertFalse(revocations.isRevoked("first", recycled));
+
+        assertTrue(revocations.revoke("recycled", recycled));
+        assertTrue(revocations.isRevoked("recycled", recycled));
+        // Every token of the earlier partition has expired by the time the slot is reused
+        assertFalse(revocations.isRevoked("first", first));
+        assertTrue(revocations.isRevoked("neighbour", neighbour));
+    }
+}
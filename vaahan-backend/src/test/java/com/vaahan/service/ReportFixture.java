@@ -0,0 +1,75 @@
+package com.vaahan.service;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestComponent;
+
+import com.vaahan.entities.SeverityLevel;
+import com.vaahan.entities.User;
+import com.vaahan.entities.UserRole;
+import com.vaahan.entities.Violation;
+import com.vaahan.entities.ViolationCategory;
+import com.vaahan.entities.ViolationReport;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Persists the category, violation, user and report rows query-count tests build on, and hands
+ * out the statement counters once the data is in place.
+ */
+@TestComponent
+class ReportFixture {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    ViolationCategory category(String name) {
+        return entityManager.persist(ViolationCategory.builder().categoryName(name).build());
+    }
+
+    Violation violation(String name, SeverityLevel severityLevel, ViolationCategory category) {
+        return entityManager.persist(Violation.builder()
+                .violation(name).severityLevel(severityLevel).category(category).build());
+    }
+
+    User user(String username) {
+        return entityManager.persist(User.builder()
+                .username(username).password("secret").email(username + "@example.com").role(UserRole.USER).build());
+    }
+
+    /**
+     * A pending report of the violation, with placeholder text the caller may override
+     */
+    ViolationReport.ViolationReportBuilder report(User user, Violation violation, String vehicleNumber) {
+        return ViolationReport.builder()
+                .user(user).violation(violation).violationCategory(violation.getCategory())
+                .title("Report " + vehicleNumber).description("Blocked driveway").location("MG Road")
+                .vehicleNumber(vehicleNumber).vehicleType("CAR");
+    }
+
+    ViolationReport persist(ViolationReport.ViolationReportBuilder report) {
+        return entityManager.persist(report.build());
+    }
+
+    /**
+     * Flushes and detaches the fixture rows, so the code under test loads them itself
+     */
+    void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /**
+     * @return The statement counters, zeroed
+     */
+    Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
@@ -0,0 +1,161 @@
+package com.vaahan.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+
+import com.vaahan.dto.ReportClaimDTO;
+import com.vaahan.dto.ReportPageDTO;
+import com.vaahan.dto.ReviewQueueEvent;
+import com.vaahan.dto.ViolationReportDTO;
+import com.vaahan.entities.ReportStatus;
+import com.vaahan.entities.SeverityLevel;
+import com.vaahan.entities.User;
+import com.vaahan.entities.Violation;
+import com.vaahan.entities.ViolationCategory;
+import com.vaahan.entities.ViolationReport;
+import com.vaahan.service.impl.ReviewPriorityServiceImpl;
+import com.vaahan.service.impl.ViolationReportServiceImpl;
+import com.vaahan.util.Mapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * The review queue served from the priority index: pages come from memory and claims skip the
+ * candidate query. Test transactions roll back, so queue events are fed to the index directly, and
+ * each test gets a fresh context so the index does not outlive the rows behind it.
+ */
+@QueryCountTest
+@Import({ ViolationReportServiceImpl.class, ReviewPriorityServiceImpl.class, SimpleMeterRegistry.class })
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ReviewPriorityQueryCountTests {
+
+    private static final Long REVIEWER_ID = 42L;
+
+    @Autowired
+    private ViolationReportService reportService;
+
+    @Autowired
+    private ReviewPriorityServiceImpl reviewPriorityService;
+
+    @Autowired
+    private ReportFixture fixture;
+
+    @MockBean
+    private VCoinService vCoinService;
+
+    @MockBean
+    private FileStorageService fileStorageService;
+
+    @MockBean
+    private ImageVariantService imageVariantService;
+
+    @MockBean
+    private NearDuplicateService nearDuplicateService;
+
+    private Statistics statistics;
+    private List<Long> reportIds;
+    private Violation minor;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        ViolationCategory category = fixture.category("Parking");
+        minor = fixture.violation("No parking zone", SeverityLevel.Low, category);
+        Violation severe = fixture.violation("Blocking ambulance", SeverityLevel.Extreme, category);
+        user = fixture.user("reporter");
+        LocalDateTime submitted = LocalDateTime.of(2024, 1, 1, 9, 0);
+        // Oldest first; only the newest is extreme
+        List<ViolationReportDTO> reports = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ViolationReport report = fixture.persist(fixture.report(user, i == 2 ? severe : minor, "KA01AB" + (1000 + i))
+                    .submissionTimestamp(submitted.plusHours(i)));
+            reports.add(Mapper.toViolationReportDTO(report));
+        }
+        fixture.flushAndClear();
+        reviewPriorityService.onQueueEvent(ReviewQueueEvent.submitted(reports));
+        reportIds = reports.stream().map(ViolationReportDTO::getReportId).toList();
+
+        statistics = fixture.statistics();
+    }
+
+    @Test
+    void pendingPagesAreServedFromMemoryBySeverityThenAge() {
+        ReportPageDTO first = reportService.getPendingReports(null, null, null, 2);
+        ReportPageDTO second = reportService.getPendingReports(first.getNextCursor(), null, null, 2);
+
+        assertEquals(List.of(reportIds.get(2), reportIds.get(0)),
+                first.getItems().stream().map(ViolationReportDTO::getReportId).toList());
+        assertEquals(List.of(reportIds.get(1)), second.getItems().stream().map(ViolationReportDTO::getReportId).toList());
+        assertNull(second.getNextCursor());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void claimIsLockAndUpdate() {
+        ReportClaimDTO claim = reportService.claimReports(REVIEWER_ID, 2);
+
+        assertEquals(List.of(reportIds.get(2), reportIds.get(0)),
+                claim.getItems().stream().map(ViolationReportDTO::getReportId).toList());
+        assertNotNull(claim.getLeaseExpiresAt());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void claimFallsBackToTheOldestWhenTheIndexComesUpShort() {
+        // Committed but not yet seen by the index
+        Long unindexed = fixture.persist(fixture.report(user, minor, "KA01AB9999")
+                .submissionTimestamp(LocalDateTime.of(2023, 12, 1, 9, 0))).getReportId();
+        fixture.flushAndClear();
+        statistics = fixture.statistics();
+
+        ReportClaimDTO claim = reportService.claimReports(REVIEWER_ID, 4);
+
+        assertEquals(List.of(reportIds.get(2), reportIds.get(0), reportIds.get(1), unindexed),
+                claim.getItems().stream().map(ViolationReportDTO::getReportId).toList());
+        // Lock the candidates, lock the rest, read the rest, claim
+        assertEquals(4, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void reporterTrackRecordIsLoadedOnFirstSubmission() {
+        Violation overspeed = fixture.violation("Overspeeding", SeverityLevel.Medium, fixture.category("Speeding"));
+        User newcomer = fixture.user("newcomer");
+        User reliable = fixture.user("reliable");
+        reliable.setTotalReports(10);
+        reliable.setTotalValidReports(10);
+        LocalDateTime submitted = LocalDateTime.of(2024, 2, 1, 9, 0);
+        ViolationReport first = fixture.persist(fixture.report(newcomer, overspeed, "KA01AB2000").submissionTimestamp(submitted));
+        ViolationReport second = fixture.persist(fixture.report(reliable, overspeed, "KA01AB2001").submissionTimestamp(submitted));
+        fixture.flushAndClear();
+        reviewPriorityService.onQueueEvent(ReviewQueueEvent.submitted(List.of(Mapper.toViolationReportDTO(first))));
+        reviewPriorityService.onQueueEvent(ReviewQueueEvent.submitted(List.of(Mapper.toViolationReportDTO(second))));
+
+        ReportPageDTO page = reportService.getPendingReports(null, null, "Speeding", 10);
+
+        assertEquals(List.of(second.getReportId(), first.getReportId()),
+                page.getItems().stream().map(ViolationReportDTO::getReportId).toList());
+    }
+
+    @Test
+    void decisionLeavesTheIndex() {
+        reviewPriorityService.onQueueEvent(ReviewQueueEvent.decided(REVIEWER_ID,
+                List.of(new ReviewQueueEvent.Decision(reportIds.get(2), ReportStatus.REJECTED))));
+
+        ReportPageDTO page = reportService.getPendingReports(null, SeverityLevel.Extreme, null, 10);
+
+        assertEquals(0, page.getItems().size());
+    }
+}
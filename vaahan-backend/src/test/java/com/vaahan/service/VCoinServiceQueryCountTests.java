@@ -0,0 +1,75 @@
+package com.vaahan.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import com.vaahan.entities.SeverityLevel;
+import com.vaahan.entities.User;
+import com.vaahan.entities.VCoinConfig;
+import com.vaahan.entities.VCoinTransaction;
+import com.vaahan.entities.Violation;
+import com.vaahan.entities.ViolationCategory;
+import com.vaahan.entities.ViolationReport;
+import com.vaahan.repository.ViolationReportRepository;
+import com.vaahan.service.impl.VCoinServiceImpl;
+
+/**
+ * Awarding a batch of approvals must update each user's balance once and insert the
+ * transaction records as one JDBC batch, however many reports are approved.
+ */
+@QueryCountTest
+@Import(VCoinServiceImpl.class)
+class VCoinServiceQueryCountTests {
+
+    @Autowired
+    private VCoinService vCoinService;
+
+    @Autowired
+    private ViolationReportRepository reportRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ReportFixture fixture;
+
+    @Test
+    void approvalsAreAwardedWithOneUpdatePerUserAndOneInsertBatch() {
+        entityManager.persist(VCoinConfig.builder().severityLevel(SeverityLevel.Medium).vCoinsReward(10).isActive(true).build());
+        entityManager.persist(VCoinConfig.builder().severityLevel(SeverityLevel.High).vCoinsReward(25).isActive(true).build());
+        ViolationCategory category = fixture.category("Speeding");
+        Violation medium = fixture.violation("Over the limit", SeverityLevel.Medium, category);
+        Violation high = fixture.violation("Twice the limit", SeverityLevel.High, category);
+        User first = fixture.user("first");
+        User second = fixture.user("second");
+        List<Long> reportIds = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            ViolationReport report = fixture.persist(fixture.report(i < 4 ? first : second, i % 2 == 0 ? medium : high,
+                    "DL01CD" + (1000 + i)));
+            reportIds.add(report.getReportId());
+        }
+        fixture.flushAndClear();
+        List<ViolationReport> approved = reportRepository.findForReviewByReportIdIn(reportIds);
+
+        Statistics statistics = fixture.statistics();
+        List<VCoinTransaction> transactions = vCoinService.awardVCoinsForApprovedReports(approved);
+        entityManager.flush();
+
+        assertEquals(6, transactions.size());
+        assertEquals(2, statistics.getEntityUpdateCount());
+        assertEquals(6, statistics.getEntityInsertCount());
+        // Active rewards, the id block (the pooled optimizer reads the sequence twice on first use),
+        // one batch of balance updates and one of transaction inserts
+        assertEquals(5, statistics.getPrepareStatementCount());
+        assertEquals(70, entityManager.find(User.class, first.getId()).getVCoins());
+        assertEquals(35, entityManager.find(User.class, second.getId()).getVCoins());
+    }
+}
@@ -0,0 +1,185 @@
+package com.vaahan.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import com.vaahan.dto.ReportClaimDTO;
+import com.vaahan.dto.ReportPageDTO;
+import com.vaahan.dto.ReviewDecisionDTO;
+import com.vaahan.dto.ReviewDecisionResultDTO;
+import com.vaahan.dto.ViolationReportDTO;
+import com.vaahan.entities.ReportStatus;
+import com.vaahan.entities.SeverityLevel;
+import com.vaahan.entities.User;
+import com.vaahan.entities.Violation;
+import com.vaahan.entities.ViolationReport;
+import com.vaahan.exception.LeaseNotHeldException;
+import com.vaahan.repository.ViolationReportRepository;
+import com.vaahan.service.impl.ViolationReportServiceImpl;
+import com.vaahan.util.Mapper;
+
+/**
+ * Pins the number of SQL statements each report read path issues, so a lazy association touched
+ * by the mapper shows up as a failing count rather than as one extra query per report.
+ */
+@QueryCountTest
+@Import(ViolationReportServiceImpl.class)
+class ViolationReportQueryCountTests {
+
+    private static final int REPORTS = 5;
+    private static final Long REVIEWER_ID = 42L;
+
+    @Autowired
+    private ViolationReportService reportService;
+
+    @Autowired
+    private ViolationReportRepository reportRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ReportFixture fixture;
+
+    @MockBean
+    private VCoinService vCoinService;
+
+    @MockBean
+    private FileStorageService fileStorageService;
+
+    @MockBean
+    private ImageVariantService imageVariantService;
+
+    @MockBean
+    private NearDuplicateService nearDuplicateService;
+
+    // Disabled, so these tests pin the database paths; ReviewPriorityQueryCountTests covers the index
+    @MockBean
+    private ReviewPriorityService reviewPriorityService;
+
+    private Statistics statistics;
+    private User user;
+    private Long reportId;
+
+    @BeforeEach
+    void setUp() {
+        Violation violation = fixture.violation("No parking zone", SeverityLevel.Medium, fixture.category("Parking"));
+        user = fixture.user("reporter");
+        LocalDateTime submitted = LocalDateTime.of(2024, 1, 1, 9, 0);
+        for (int i = 0; i < REPORTS; i++) {
+            ViolationReport report = fixture.persist(fixture.report(user, violation, "KA01AB" + (1000 + i))
+                    .submissionTimestamp(submitted.plusMinutes(i)).ingestId("ingest-" + i)
+                    .claimedBy(REVIEWER_ID).claimExpiresAt(LocalDateTime.now().plusHours(1)));
+            reportId = report.getReportId();
+        }
+        fixture.flushAndClear();
+
+        statistics = fixture.statistics();
+    }
+
+    @Test
+    void reportByIdIsOneStatement() {
+        ViolationReportDTO report = reportService.getReportById(reportId);
+
+        assertEquals("Parking", report.getViolationCategory());
+        assertEquals(SeverityLevel.Medium, report.getSeverityLevel());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void reportByIngestIdIsOneStatement() {
+        ViolationReportDTO report = Mapper.toViolationReportDTO(reportRepository.findByIngestId("ingest-0").orElseThrow());
+
+        assertEquals("Parking", report.getViolationCategory());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void pendingPageIsOneStatement() {
+        ReportPageDTO page = reportService.getPendingReports(null, null, null, REPORTS);
+
+        assertEquals(REPORTS, page.getItems().size());
+        assertEquals("Parking", page.getItems().get(0).getViolationCategory());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void userPageIsOneStatement() {
+        ReportPageDTO page = reportService.getReportsByUser(user.getId(), null, SeverityLevel.Medium, "Parking", REPORTS);
+
+        assertEquals(REPORTS, page.getItems().size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void claimIsLockUpdateAndRead() {
+        ReportClaimDTO claim = reportService.claimReports(REVIEWER_ID, REPORTS);
+
+        assertEquals(REPORTS, claim.getItems().size());
+        assertNotNull(claim.getLeaseExpiresAt());
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void approvalIsDecisionSelectAndReporterUpdate() {
+        ViolationReportDTO report = reportService.updateReportStatus(reportId, "approved", REVIEWER_ID);
+        entityManager.flush();
+
+        assertNotNull(report.getSeverityLevel());
+        assertEquals(ReportStatus.APPROVED, report.getStatus());
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void bulkDecisionIsOneStatementPerStep() {
+        List<Long> reportIds = reportRepository.findAll().stream().map(ViolationReport::getReportId).sorted().toList();
+        entityManager.clear();
+        statistics.clear();
+        List<ReviewDecisionDTO> decisions = new ArrayList<>();
+        for (int i = 0; i < REPORTS; i++) {
+            decisions.add(new ReviewDecisionDTO(reportIds.get(i), i < 3 ? "APPROVED" : "REJECTED"));
+        }
+        decisions.add(new ReviewDecisionDTO(Long.MAX_VALUE, "APPROVED"));
+
+        List<ReviewDecisionResultDTO> results = reportService.decideReports(decisions, REVIEWER_ID);
+        entityManager.flush();
+
+        assertEquals(REPORTS, results.stream().filter(ReviewDecisionResultDTO::isSuccess).count());
+        assertFalse(results.get(REPORTS).isSuccess());
+        // Lock, one update per decided status, load, the reporter's valid count and the existence check for the unknown id
+        assertEquals(6, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void invalidDuplicateDecisionRejectsTheReport() {
+        List<ReviewDecisionResultDTO> results = reportService.decideReports(List.of(
+                new ReviewDecisionDTO(reportId, "APPROVED"), new ReviewDecisionDTO(reportId, "MAYBE")), REVIEWER_ID);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertFalse(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertEquals(ReportStatus.PENDING, reportRepository.findById(reportId).orElseThrow().getStatus());
+        verifyNoInteractions(vCoinService);
+    }
+
+    @Test
+    void decisionWithoutLeaseIsRejected() {
+        assertThrows(LeaseNotHeldException.class, () -> reportService.updateReportStatus(reportId, "approved", REVIEWER_ID + 1));
+    }
+}
@@ -0,0 +1,197 @@
+package com.vaahan.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vaahan.dto.ReviewQueueEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Ordering, resume and isolation of the review event stream, with emitters that record what
+ * would have been written to each client.
+ */
+class ReviewEventServiceTests {
+
+    private static final Pattern EVENT = Pattern.compile("^(?:id:(\\d+)\\n)?event:([a-z-]+)\\n");
+    private static final int QUEUE = 8;
+
+    private final List<RecordingEmitter> emitters = new CopyOnWriteArrayList<>();
+    private volatile CountDownLatch stall;
+    private ReviewEventServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ReviewEventServiceImpl() {
+            @Override
+            SseEmitter newEmitter(long timeoutMillis) {
+                RecordingEmitter emitter = new RecordingEmitter(stall);
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+        ReflectionTestUtils.setField(service, "bufferSize", 64);
+        ReflectionTestUtils.setField(service, "maxSubscribers", 10);
+        ReflectionTestUtils.setField(service, "timeoutMinutes", 1L);
+        ReflectionTestUtils.setField(service, "heartbeatSeconds", 3600L);
+        ReflectionTestUtils.setField(service, "subscriberQueue", QUEUE);
+        ReflectionTestUtils.setField(service, "sendThreads", 2);
+        ReflectionTestUtils.setField(service, "sendTimeoutSeconds", 10L);
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (stall != null) {
+            stall.countDown();
+        }
+        service.destroy();
+    }
+
+    @Test
+    void concurrentPublishersAreDeliveredInIdOrder() throws Exception {
+        service.subscribe(null);
+        RecordingEmitter client = emitters.get(0);
+        List<Thread> publishers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            publishers.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < QUEUE / 4; i++) {
+                    publish();
+                }
+            }));
+        }
+        for (Thread publisher : publishers) {
+            publisher.join();
+        }
+
+        awaitTrue(() -> client.ids().size() == QUEUE);
+        List<Long> ids = client.ids();
+        for (int i = 1; i < ids.size(); i++) {
+            assertEquals(ids.get(i - 1) + 1, ids.get(i));
+        }
+    }
+
+    @Test
+    void resumeReplaysEachMissedEventOnce() {
+        service.subscribe(null);
+        RecordingEmitter first = emitters.get(0);
+        publish();
+        publish();
+        publish();
+        awaitTrue(() -> first.ids().size() == 3);
+
+        service.subscribe(Long.toString(first.ids().get(0)));
+        publish();
+        RecordingEmitter resumed = emitters.get(1);
+
+        awaitTrue(() -> resumed.ids().size() == 3);
+        assertEquals(first.ids().subList(1, 3), resumed.ids().subList(0, 2));
+        awaitTrue(() -> first.ids().size() == 4);
+        assertEquals(first.ids().get(3), resumed.ids().get(2));
+    }
+
+    @Test
+    void unknownLastEventIdGetsAReset() {
+        service.subscribe("not-an-id");
+        awaitTrue(() -> emitters.get(0).types().equals(List.of(ReviewQueueEvent.RESET)));
+    }
+
+    @Test
+    void slowSubscriberIsDroppedWithoutHoldingUpOthers() {
+        stall = new CountDownLatch(1);
+        service.subscribe(null);
+        stall = null;
+        service.subscribe(null);
+        RecordingEmitter slow = emitters.get(0);
+        RecordingEmitter fast = emitters.get(1);
+
+        // One event stuck in the slow client's write, then a full queue, then one more to drop it
+        for (int i = 1; i <= QUEUE + 2; i++) {
+            publish();
+            int delivered = i;
+            awaitTrue(() -> fast.ids().size() == delivered);
+        }
+
+        assertTrue(slow.ids().isEmpty());
+        assertEquals(1, ((Set<?>) ReflectionTestUtils.getField(service, "subscribers")).size());
+    }
+
+    private void publish() {
+        service.onQueueEvent(new ReviewQueueEvent(ReviewQueueEvent.SUBMITTED, Map.of("reportId", 1)));
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Condition not met within 5s");
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private static final class RecordingEmitter extends SseEmitter {
+        private final List<String> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch stall;
+
+        RecordingEmitter(CountDownLatch stall) {
+            this.stall = stall;
+        }
+
+        @Override
+        public synchronized void send(Set<DataWithMediaType> items) {
+            if (stall != null) {
+                try {
+                    stall.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return;
+            }
+            events.add(items.iterator().next().getData().toString());
+        }
+
+        List<Long> ids() {
+            List<Long> ids = new ArrayList<>();
+            for (String event : events) {
+                Matcher matcher = EVENT.matcher(event);
+                if (matcher.find() && matcher.group(1) != null) {
+                    ids.add(Long.parseLong(matcher.group(1)));
+                }
+            }
+            return ids;
+        }
+
+        List<String> types() {
+            List<String> types = new ArrayList<>();
+            for (String event : events) {
+                Matcher matcher = EVENT.matcher(event);
+                if (matcher.find()) {
+                    types.add(matcher.group(2));
+                }
+            }
+            return types;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.vaahan.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class EventRingTests {
+
+    @Test
+    void returnsEventsAfterTheLastSeenUpToTheLimit() {
+        EventRing ring = new EventRing(4);
+        long first = ring.append("a", "1").id();
+        ring.append("b", "2");
+        long third = ring.append("c", "3").id();
+
+        assertEquals(List.of("b", "c"), types(ring.between(first, third)));
+        assertEquals(List.of("b"), types(ring.between(first, third - 1)));
+        assertEquals(List.of(), ring.between(third, third));
+        // Just before the oldest retained event: everything retained is still owed
+        assertEquals(List.of("a", "b", "c"), types(ring.between(first - 1, third)));
+    }
+
+    @Test
+    void overwrittenOrUnknownIdsAreNull() {
+        EventRing ring = new EventRing(2);
+        long first = ring.append("a", "1").id();
+        ring.append("b", "2");
+        long third = ring.append("c", "3").id();
+
+        assertNull(ring.between(first - 1, third));
+        assertEquals(List.of("c"), types(ring.between(first + 1, third)));
+        // An id from the future, or from before a restart
+        assertNull(ring.between(third + 1, third));
+        assertNull(ring.between(42, third));
+    }
+
+    private static List<String> types(List<EventRing.Entry> entries) {
+        return entries.stream().map(EventRing.Entry::type).toList();
+    }
+}
@@ -0,0 +1,61 @@
+package com.vaahan.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class HammingIndexTests {
+
+    private static final int CLUSTERS = 200;
+    private static final int PER_CLUSTER = 10;
+
+    // 10 is reports.duplicates.max-distance; the others are not multiples of the chunk count
+    @ParameterizedTest
+    @ValueSource(ints = { 0, 3, 10, 13 })
+    void searchFindsExactlyWhatABruteForceScanFinds(int maxDistance) {
+        Random random = new Random(42);
+        // Clusters of variants a few bits apart, so many pairs fall either side of the distance
+        List<Long> hashes = new ArrayList<>();
+        for (int c = 0; c < CLUSTERS; c++) {
+            long base = random.nextLong();
+            for (int v = 0; v < PER_CLUSTER; v++) {
+                hashes.add(flip(base, random.nextInt(2 * maxDistance + 2), random));
+            }
+        }
+        HammingIndex index = new HammingIndex();
+        for (int id = 0; id < hashes.size(); id++) {
+            index.add(hashes.get(id), id);
+        }
+
+        for (int q = 0; q < 500; q++) {
+            long query = flip(hashes.get(random.nextInt(hashes.size())), random.nextInt(maxDistance + 2), random);
+            Set<Long> expected = new TreeSet<>();
+            for (int id = 0; id < hashes.size(); id++) {
+                if (Long.bitCount(hashes.get(id) ^ query) <= maxDistance) {
+                    expected.add((long) id);
+                }
+            }
+            List<Long> found = new ArrayList<>();
+            index.search(query, maxDistance, found::add);
+
+            assertEquals(expected, new TreeSet<>(found));
+            assertEquals(expected.size(), found.size(), "an id was reported twice");
+        }
+    }
+
+    // Flips the given number of distinct random bits
+    private static long flip(long hash, int bits, Random random) {
+        long mask = 0;
+        while (Long.bitCount(mask) < bits) {
+            mask |= 1L << random.nextInt(64);
+        }
+        return hash ^ mask;
+    }
+}
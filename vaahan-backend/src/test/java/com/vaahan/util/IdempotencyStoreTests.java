@@ -0,0 +1,178 @@
+package com.vaahan.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class IdempotencyStoreTests {
+
+    private static final String KEY = "key-1";
+
+    private final AtomicInteger runs = new AtomicInteger();
+    private IdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new IdempotencyStore();
+        ReflectionTestUtils.setField(store, "ttlSeconds", 60L);
+        ReflectionTestUtils.setField(store, "maxKeys", 100L);
+        ReflectionTestUtils.setField(store, "waitSeconds", 1L);
+        store.init();
+    }
+
+    @Test
+    void retryReplaysTheFirstResponse() {
+        ResponseEntity<String> first = store.execute(KEY, 1L, "submit", created("report-1"));
+        ResponseEntity<String> retry = store.execute(KEY, 1L, "submit", created("report-2"));
+
+        assertEquals(1, runs.get());
+        assertNull(first.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+        assertEquals(HttpStatus.CREATED, retry.getStatusCode());
+        assertEquals("report-1", retry.getBody());
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+    }
+
+    @Test
+    void keysAreScopedByUserAndOperation() {
+        store.execute(KEY, 1L, "submit", created("a"));
+        store.execute(KEY, 2L, "submit", created("b"));
+        store.execute(KEY, 1L, "upload", created("c"));
+
+        assertEquals(3, runs.get());
+    }
+
+    @Test
+    void concurrentDuplicateWaitsForAndSharesTheResult() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread first = Thread.ofPlatform().start(() -> store.execute(KEY, 1L, "submit", () -> {
+            started.countDown();
+            await(release);
+            return created("report-1").get();
+        }));
+        started.await();
+
+        AtomicReference<ResponseEntity<String>> duplicate = new AtomicReference<>();
+        Thread waiter = Thread.ofPlatform().start(() -> duplicate.set(store.execute(KEY, 1L, "submit", created("report-2"))));
+        awaitBlocked(waiter);
+        release.countDown();
+        first.join();
+        waiter.join();
+
+        assertEquals(1, runs.get());
+        assertEquals("report-1", duplicate.get().getBody());
+        assertEquals("true", duplicate.get().getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+    }
+
+    @Test
+    void duplicateGivesUpWithConflictWhileTheFirstIsStillRunning() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread first = Thread.ofPlatform().start(() -> store.execute(KEY, 1L, "submit", () -> {
+            started.countDown();
+            await(release);
+            return created("report-1").get();
+        }));
+        started.await();
+
+        ResponseEntity<String> duplicate = store.execute(KEY, 1L, "submit", created("report-2"));
+        release.countDown();
+        first.join();
+
+        assertEquals(HttpStatus.CONFLICT, duplicate.getStatusCode());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void serverErrorIsNotRemembered() {
+        store.execute(KEY, 1L, "submit", () -> {
+            runs.incrementAndGet();
+            return ResponseEntity.<String>status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        });
+        ResponseEntity<String> retry = store.execute(KEY, 1L, "submit", created("report-1"));
+
+        assertEquals(2, runs.get());
+        assertEquals(HttpStatus.CREATED, retry.getStatusCode());
+    }
+
+    @Test
+    void failedFirstAttemptReleasesTheKeyAndItsWaiter() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        Thread first = Thread.ofPlatform().start(() -> {
+            try {
+                store.execute(KEY, 1L, "submit", () -> {
+                    started.countDown();
+                    await(release);
+                    throw new IllegalStateException("database unavailable");
+                });
+            } catch (IllegalStateException e) {
+                thrown.set(e);
+            }
+        });
+        started.await();
+
+        AtomicReference<ResponseEntity<String>> duplicate = new AtomicReference<>();
+        Thread waiter = Thread.ofPlatform().start(() -> duplicate.set(store.execute(KEY, 1L, "submit", created("report-2"))));
+        awaitBlocked(waiter);
+        release.countDown();
+        first.join();
+        waiter.join();
+
+        assertEquals("database unavailable", thrown.get().getMessage());
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, duplicate.get().getStatusCode());
+        assertEquals(HttpStatus.CREATED, store.execute(KEY, 1L, "submit", created("report-3")).getStatusCode());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void errorReleasesTheKey() {
+        assertThrows(StackOverflowError.class, () -> store.execute(KEY, 1L, "submit", () -> {
+            throw new StackOverflowError();
+        }));
+
+        ResponseEntity<String> retry = store.execute(KEY, 1L, "submit", created("report-1"));
+
+        assertEquals(HttpStatus.CREATED, retry.getStatusCode());
+        assertNull(retry.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+    }
+
+    private Supplier<ResponseEntity<String>> created(String body) {
+        return () -> {
+            runs.incrementAndGet();
+            return ResponseEntity.status(HttpStatus.CREATED).body(body);
+        };
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Parked on the first request's result
+    private static void awaitBlocked(Thread thread) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.getState() != Thread.State.TIMED_WAITING) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Thread did not block within 5s");
+            }
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.vaahan.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Recovery from a crash part way through sealing a pack.
+ */
+class PackFileTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void crashBetweenRenamesIsCleanedUpAndTheIdReused() throws IOException {
+        seal(1, "first");
+        // Data renamed and marker created, index still under its partial name
+        Files.write(directory.resolve("00000002.pack"), new byte[] { 1, 2, 3 });
+        Files.createFile(directory.resolve("00000002.pending"));
+        Files.write(directory.resolve("00000002.idx.part"), new byte[] { 4 });
+
+        assertEquals(3, PackFile.deleteUnsealed(directory));
+        assertEquals(List.of(1), PackFile.list(directory));
+
+        PackFile pack = seal(2, "second");
+        assertTrue(pack.isPending());
+        assertNotNull(pack.find(key("second"), 0));
+    }
+
+    @Test
+    void sealedPacksAreKept() throws IOException {
+        seal(1, "first");
+
+        assertEquals(0, PackFile.deleteUnsealed(directory));
+        PackFile pack = PackFile.open(directory, 1);
+        assertTrue(pack.isPending());
+        pack.markComplete();
+        assertFalse(pack.isPending());
+        assertEquals(0, PackFile.deleteUnsealed(directory));
+        assertEquals(List.of(1), PackFile.list(directory));
+    }
+
+    private PackFile seal(int id, String content) throws IOException {
+        try (PackFile.Writer writer = PackFile.create(directory, id, 1 << 20)) {
+            writer.append(key(content), 0, content.getBytes(StandardCharsets.UTF_8));
+            return writer.seal();
+        }
+    }
+
+    private static byte[] key(String content) {
+        return Arrays.copyOf(content.getBytes(StandardCharsets.UTF_8), PackFile.KEY_BYTES);
+    }
+}
@@ -0,0 +1,87 @@
+package com.vaahan.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Appends must come back, with an error if need be, whatever the disk does underneath the log.
+ */
+class WriteAheadLogTests {
+
+    private static final int SEGMENT_BYTES = 64 * 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void appendedRecordsAreRecovered() throws IOException {
+        try (WriteAheadLog log = new WriteAheadLog(directory, SEGMENT_BYTES, 0, 1000)) {
+            long first = log.append(bytes("first"), null);
+            log.append(bytes("second"), null);
+            log.acknowledge(first);
+        }
+        try (WriteAheadLog log = new WriteAheadLog(directory, SEGMENT_BYTES, 0, 1000)) {
+            assertEquals(1, log.takeRecovered().size());
+        }
+    }
+
+    @Test
+    void failedSyncFailsTheAppendInsteadOfHanging() throws IOException {
+        WriteAheadLog log = new WriteAheadLog(directory, SEGMENT_BYTES, 0, 60_000) {
+            @Override
+            void force(MappedByteBuffer buffer, int from, int length) {
+                // What MappedByteBuffer.force throws on a disk error
+                throw new UncheckedIOException(new IOException("Input/output error"));
+            }
+        };
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            assertThrows(IOException.class, () -> log.append(bytes("report"), null));
+            // The log stays failed rather than accepting records it cannot make durable
+            assertThrows(IOException.class, () -> log.append(bytes("report"), null));
+        });
+        log.close();
+    }
+
+    @Test
+    void stalledSyncTimesOutAndWithdrawsTheRecord() throws IOException {
+        CountDownLatch stalled = new CountDownLatch(1);
+        WriteAheadLog log = new WriteAheadLog(directory, SEGMENT_BYTES, 0, 100) {
+            @Override
+            void force(MappedByteBuffer buffer, int from, int length) throws IOException {
+                try {
+                    stalled.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.force(buffer, from, length);
+            }
+        };
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> assertThrows(IOException.class, () -> log.append(bytes("report"), null)));
+        assertEquals(0, log.pendingCount());
+        stalled.countDown();
+        log.close();
+
+        try (WriteAheadLog reopened = new WriteAheadLog(directory, SEGMENT_BYTES, 0, 1000)) {
+            assertEquals(0, reopened.takeRecovered().size());
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,112 @@
+package com.vaahan.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.vaahan.entities.User;
+import com.vaahan.entities.UserRole;
+import com.vaahan.entities.UserStatus;
+import com.vaahan.repository.UserRepository;
+import com.vaahan.security.CustomUserDetailsService;
+import com.vaahan.security.JwtAuthenticationFilter;
+import com.vaahan.security.JwtUtil;
+import com.vaahan.security.SecurityVersionRegistry;
+import com.vaahan.security.TokenRevocationList;
+import com.vaahan.security.UserDetailsCache;
+import com.vaahan.security.VerifiedTokenCache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Wires the authentication components by hand, with the same defaults as application.properties,
+ * so benchmarks measure the real classes without a Spring context or a database.
+ */
+final class AuthFixtures {
+
+    static final String SECRET = "vaahan_jwt_secret_key_2024_secure_and_long_enough_for_hmac_sha512";
+    static final String USERNAME = "user";
+    static final String ENCODED_PASSWORD = "{noop}user123"; // Never verified by these benchmarks
+
+    private AuthFixtures() {
+    }
+
+    static User user() {
+        return User.builder()
+                .id(42L)
+                .username(USERNAME)
+                .email("user@vaahan.com")
+                .password(ENCODED_PASSWORD)
+                .role(UserRole.USER)
+                .accountStatus(UserStatus.ACTIVE)
+                .build();
+    }
+
+    // Answers findByUsernameOrEmail with a fixed user; every other repository call is unsupported
+    static UserRepository stubUserRepository(User user) {
+        return (UserRepository) Proxy.newProxyInstance(
+                UserRepository.class.getClassLoader(),
+                new Class<?>[] { UserRepository.class },
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findByUsernameOrEmail", "findByUsername" -> Optional.of(user);
+                    case "findRevisedSecurityVersions" -> List.of();
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "StubUserRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    static JwtUtil jwtUtil() {
+        VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache();
+        ReflectionTestUtils.setField(verifiedTokenCache, "maxSize", 10_000L);
+        ReflectionTestUtils.invokeMethod(verifiedTokenCache, "init");
+
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expirationMs", 900_000L);
+        ReflectionTestUtils.setField(jwtUtil, "refreshExpirationMs", 604_800_000L);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedTokenCache", verifiedTokenCache);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        return jwtUtil;
+    }
+
+    static UserDetailsCache userDetailsCache() {
+        UserDetailsCache cache = new UserDetailsCache();
+        ReflectionTestUtils.setField(cache, "maxSize", 10_000L);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 300L);
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.invokeMethod(cache, "init");
+        return cache;
+    }
+
+    static CustomUserDetailsService userDetailsService(UserRepository repository, UserDetailsCache cache) {
+        CustomUserDetailsService service = new CustomUserDetailsService();
+        ReflectionTestUtils.setField(service, "userRepository", repository);
+        ReflectionTestUtils.setField(service, "userDetailsCache", cache);
+        return service;
+    }
+
+    static TokenRevocationList tokenRevocationList() {
+        TokenRevocationList revocationList = new TokenRevocationList();
+        ReflectionTestUtils.setField(revocationList, "partitionMinutes", 60L);
+        ReflectionTestUtils.setField(revocationList, "bloomBits", 65_536);
+        ReflectionTestUtils.setField(revocationList, "maxTokenLifetimeMs", 604_800_000L);
+        ReflectionTestUtils.invokeMethod(revocationList, "init");
+        return revocationList;
+    }
+
+    static JwtAuthenticationFilter filter(JwtUtil jwtUtil, CustomUserDetailsService userDetailsService,
+                                          boolean statelessPrincipal) {
+        SecurityVersionRegistry registry = new SecurityVersionRegistry();
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(filter, "customUserDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(filter, "securityVersionRegistry", registry);
+        ReflectionTestUtils.setField(filter, "tokenRevocationList", tokenRevocationList());
+        ReflectionTestUtils.setField(filter, "statelessPrincipal", statelessPrincipal);
+        return filter;
+    }
+}
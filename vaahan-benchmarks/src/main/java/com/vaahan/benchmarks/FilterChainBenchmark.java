@@ -0,0 +1,78 @@
+package com.vaahan.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.vaahan.entities.User;
+import com.vaahan.security.JwtAuthenticationFilter;
+import com.vaahan.security.JwtUtil;
+import com.vaahan.security.UserPrincipal;
+
+/**
+ * End-to-end JwtAuthenticationFilter throughput on mock requests, for an authenticated API call
+ * and a public path that the filter should skip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class FilterChainBenchmark {
+
+    @Param({ "false", "true" })
+    public boolean statelessPrincipal;
+
+    private JwtAuthenticationFilter filter;
+    private String authorizationHeader;
+
+    @Setup
+    public void setup() {
+        User user = AuthFixtures.user();
+        JwtUtil jwtUtil = AuthFixtures.jwtUtil();
+        filter = AuthFixtures.filter(jwtUtil,
+                AuthFixtures.userDetailsService(AuthFixtures.stubUserRepository(user), AuthFixtures.userDetailsCache()),
+                statelessPrincipal);
+        authorizationHeader = "Bearer " + jwtUtil.generateToken(UserPrincipal.from(user));
+    }
+
+    @Benchmark
+    public Object authenticatedRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/user/profile");
+        request.setServletPath("/api/user/profile");
+        request.addHeader("Authorization", authorizationHeader);
+        return run(request);
+    }
+
+    @Benchmark
+    public Object publicRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setServletPath("/api/auth/login");
+        return run(request);
+    }
+
+    private Object run(MockHttpServletRequest request) throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        Object authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
@@ -0,0 +1,74 @@
+package com.vaahan.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vaahan.security.JwtUtil;
+import com.vaahan.security.UserPrincipal;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Token generation and the three ways a token can be verified: through JwtUtil (cache hit),
+ * with a pre-built parser (cache miss), and rebuilding key and parser per call as JwtUtil used to.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtUtil jwtUtil;
+    private UserPrincipal principal;
+    private JwtParser parser;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtUtil = AuthFixtures.jwtUtil();
+        principal = UserPrincipal.from(AuthFixtures.user());
+        parser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(AuthFixtures.SECRET.getBytes()))
+                .build();
+        token = jwtUtil.generateToken(principal);
+    }
+
+    @Benchmark
+    public String generateAccessToken() {
+        return jwtUtil.generateToken(principal);
+    }
+
+    @Benchmark
+    public Claims parseClaimsCached() {
+        return jwtUtil.parseClaims(token);
+    }
+
+    @Benchmark
+    public Claims verifyPrebuiltParser() {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    @Benchmark
+    public Claims verifyRebuildingParser() {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(AuthFixtures.SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
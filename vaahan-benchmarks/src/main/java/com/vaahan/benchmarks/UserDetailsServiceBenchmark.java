@@ -0,0 +1,54 @@
+package com.vaahan.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.vaahan.entities.User;
+import com.vaahan.security.CustomUserDetailsService;
+import com.vaahan.security.UserDetailsCache;
+
+/**
+ * CustomUserDetailsService over a stubbed repository, so the numbers exclude the database
+ * and show the cost of the service and its cache alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserDetailsServiceBenchmark {
+
+    private CustomUserDetailsService service;
+    private UserDetailsCache cache;
+    private User user;
+
+    @Setup
+    public void setup() {
+        user = AuthFixtures.user();
+        cache = AuthFixtures.userDetailsCache();
+        service = AuthFixtures.userDetailsService(AuthFixtures.stubUserRepository(user), cache);
+    }
+
+    @Benchmark
+    public UserDetails loadCached() {
+        return service.loadUserByUsername(AuthFixtures.USERNAME);
+    }
+
+    @Benchmark
+    public UserDetails loadAfterInvalidation() {
+        cache.invalidate(user.getUsername(), user.getEmail());
+        return service.loadUserByUsername(AuthFixtures.USERNAME);
+    }
+}
@@ -18,4 +18,50 @@ api.interceptors.request.use(
   (error) => Promise.reject(error)
 );
 
+// Access tokens are short-lived; on an auth failure, rotate the refresh token once and retry.
+// Concurrent failures share a single refresh call because refresh tokens are single use.
+let refreshPromise = null;
+
+const refreshTokens = () => {
+  if (!refreshPromise) {
+    const refreshToken = localStorage.getItem("refreshToken");
+    refreshPromise = axios
+      .post(`${BASE_URL}/auth/refresh`, { refreshToken }, { withCredentials: true })
+      .then((res) => {
+        localStorage.setItem("jwtToken", res.data.data.token);
+        localStorage.setItem("refreshToken", res.data.data.refreshToken);
+        return res.data.data.token;
+      })
+      .finally(() => {
+        refreshPromise = null;
+      });
+  }
+  return refreshPromise;
+};
+
+api.interceptors.response.use(
+  (response) => response,
+  async (error) => {
+    const original = error.config;
+    const status = error.response && error.response.status;
+    const isAuthCall = original && original.url && original.url.startsWith("/auth/");
+
+    if ((status === 401 || status === 403) && original && !original._retried && !isAuthCall
+        && localStorage.getItem("refreshToken")) {
+      original._retried = true;
+      try {
+        const token = await refreshTokens();
+        original.headers.Authorization = `Bearer ${token}`;
+        return api(original);
+      } catch (refreshError) {
+        localStorage.removeItem("jwtToken");
+        localStorage.removeItem("refreshToken");
+        localStorage.removeItem("user");
+        return Promise.reject(error);
+      }
+    }
+    return Promise.reject(error);
+  }
+);
+
 export default api;
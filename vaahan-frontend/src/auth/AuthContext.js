@@ -1,4 +1,5 @@
 import { createContext, useContext, useState, useEffect } from "react";
+import api from "../api/axiosConfig";
 
 const AuthContext = createContext();
 
@@ -24,7 +25,8 @@ export const AuthProvider = ({ children }) => {
     const token = localStorage.getItem("jwtToken");
     if (token) {
       const decodedToken = decodeToken(token);
-      if (decodedToken && decodedToken.exp > Date.now() / 1000) {
+      const canRefresh = !!localStorage.getItem("refreshToken");
+      if (decodedToken && (decodedToken.exp > Date.now() / 1000 || canRefresh)) {
         // Extract user information from token
         let userRole = "USER";
         if (decodedToken.authorities && decodedToken.authorities.length > 0) {
@@ -46,7 +48,7 @@ export const AuthProvider = ({ children }) => {
     return null;
   });
 
-  const login = (userData, token) => {
+  const login = (userData, token, refreshToken) => {
     const decodedToken = decodeToken(token);
     if (decodedToken) {
       let userRole = "USER";
@@ -67,13 +69,22 @@ export const AuthProvider = ({ children }) => {
       };
       
       localStorage.setItem("jwtToken", token);
+      if (refreshToken) {
+        localStorage.setItem("refreshToken", refreshToken);
+      }
       localStorage.setItem("user", JSON.stringify(userInfo));
       setUser(userInfo);
     }
   };
 
   const logout = () => {
+    const refreshToken = localStorage.getItem("refreshToken");
+    if (localStorage.getItem("jwtToken")) {
+      // Revoke server-side; the local session is cleared regardless of the outcome
+      api.post("/auth/logout", { refreshToken }).catch(() => {});
+    }
     localStorage.removeItem("jwtToken");
+    localStorage.removeItem("refreshToken");
     localStorage.removeItem("user");
     setUser(null);
   };
@@ -83,7 +94,8 @@ export const AuthProvider = ({ children }) => {
     const token = localStorage.getItem("jwtToken");
     if (token) {
       const decodedToken = decodeToken(token);
-      if (!decodedToken || decodedToken.exp < Date.now() / 1000) {
+      const canRefresh = !!localStorage.getItem("refreshToken");
+      if (!decodedToken || (decodedToken.exp < Date.now() / 1000 && !canRefresh)) {
         logout();
       }
     }
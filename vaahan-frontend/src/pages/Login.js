@@ -26,13 +26,14 @@ const Login = () => {
       
       if (res.data.success) {
         const token = res.data.data.token;
+        const refreshToken = res.data.data.refreshToken;
         const userData = {
           username: credentials.username,
           // You can decode the JWT token to get user role and other info
           // For now, we'll fetch user details separately if needed
         };
         
-        login(userData, token);
+        login(userData, token, refreshToken);
         toast.success("Login successful!");
         
         // Decode JWT token to get user role and redirect accordingly